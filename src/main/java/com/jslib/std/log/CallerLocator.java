@@ -0,0 +1,166 @@
+package com.jslib.std.log;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Locate source code that invoked the logger, that is, the first stack frame outside logger implementation. On Java 9
+ * and newer uses a lazy stack walker that stops on first application frame; on Java 8 falls back to throwable stack
+ * trace.
+ * <p>
+ * Since this library is compiled for Java 8, stack walker API is accessed via method handles resolved once, at class
+ * loading.
+ */
+abstract class CallerLocator
+{
+  private static final String PACKAGE_PREFIX = CallerLocator.class.getPackage().getName() + '.';
+  private static final CallerLocator instance = createInstance();
+
+  public static CallerLocator instance()
+  {
+    return instance;
+  }
+
+  /**
+   * Get caller stack frame with details controlled by location capture mode. If mode is {@link LocationCapture#METHOD}
+   * returned stack element has no file name and line number.
+   *
+   * @param capture location capture mode, not {@link LocationCapture#OFF}.
+   * @return caller stack element or null if caller cannot be located.
+   */
+  public abstract StackTraceElement locate(LocationCapture capture);
+
+  /**
+   * Test if stack frame belongs to logger implementation, that is, should be skipped when searching for caller. Only
+   * classes on logger call path are considered; other classes from logger package, e.g. unit tests, are valid callers.
+   *
+   * @param className class name from stack frame.
+   * @return true if stack frame is from logger implementation.
+   */
+  static boolean isLoggerFrame(String className)
+  {
+    if(!className.startsWith(PACKAGE_PREFIX)) {
+      return false;
+    }
+    return isClass(className, "LogImpl") || isClass(className, "LogPrinter") || isClass(className, "CallerLocator");
+  }
+
+  /**
+   * Test if class name, known to be from logger package, is for given simple class name or one of its nested classes.
+   * 
+   * @param className qualified class name from logger package,
+   * @param simpleName simple class name.
+   * @return true if class name denotes requested class or a nested class of it.
+   */
+  private static boolean isClass(String className, String simpleName)
+  {
+    int offset = PACKAGE_PREFIX.length();
+    if(!className.startsWith(simpleName, offset)) {
+      return false;
+    }
+    int end = offset + simpleName.length();
+    return className.length() == end || className.charAt(end) == '$';
+  }
+
+  private static CallerLocator createInstance()
+  {
+    try {
+      return new StackWalkerLocator();
+    }
+    catch(Throwable unused) {
+      // stack walker is not available on Java 8
+      return new StackTraceLocator();
+    }
+  }
+
+  /** Locator based on Java 9 stack walker, that creates stack frames lazily and stops on first application frame. */
+  private static final class StackWalkerLocator extends CallerLocator
+  {
+    private final MethodHandle walk;
+    private final MethodHandle getClassName;
+    private final MethodHandle getMethodName;
+    private final MethodHandle toStackTraceElement;
+
+    private final Function<Stream<Object>, Object> methodLocator;
+    private final Function<Stream<Object>, Object> fullLocator;
+
+    public StackWalkerLocator() throws Throwable
+    {
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      Class<?> walkerClass = Class.forName("java.lang.StackWalker");
+      Class<?> frameClass = Class.forName("java.lang.StackWalker$StackFrame");
+
+      Object walker = lookup.findStatic(walkerClass, "getInstance", MethodType.methodType(walkerClass)).invoke();
+      this.walk = lookup.findVirtual(walkerClass, "walk", MethodType.methodType(Object.class, Function.class)).bindTo(walker);
+
+      MethodType stringGetter = MethodType.methodType(String.class, Object.class);
+      this.getClassName = lookup.findVirtual(frameClass, "getClassName", MethodType.methodType(String.class)).asType(stringGetter);
+      this.getMethodName = lookup.findVirtual(frameClass, "getMethodName", MethodType.methodType(String.class)).asType(stringGetter);
+      this.toStackTraceElement = lookup.findVirtual(frameClass, "toStackTraceElement", MethodType.methodType(StackTraceElement.class)).asType(MethodType.methodType(StackTraceElement.class, Object.class));
+
+      this.methodLocator = frames -> frames.filter(this::isCallerFrame).findFirst().map(this::methodElement).orElse(null);
+      this.fullLocator = frames -> frames.filter(this::isCallerFrame).findFirst().map(this::fullElement).orElse(null);
+    }
+
+    @Override
+    public StackTraceElement locate(LocationCapture capture)
+    {
+      // method handle exact invocation needs locator static type to match handle parameter type
+      Function<Stream<Object>, Object> locator = capture == LocationCapture.FULL ? fullLocator : methodLocator;
+      try {
+        return (StackTraceElement)(Object)walk.invokeExact(locator);
+      }
+      catch(Throwable unused) {
+        return null;
+      }
+    }
+
+    private boolean isCallerFrame(Object frame)
+    {
+      try {
+        return !isLoggerFrame((String)getClassName.invokeExact(frame));
+      }
+      catch(Throwable unused) {
+        return false;
+      }
+    }
+
+    private Object methodElement(Object frame)
+    {
+      try {
+        return new StackTraceElement((String)getClassName.invokeExact(frame), (String)getMethodName.invokeExact(frame), null, -1);
+      }
+      catch(Throwable unused) {
+        return null;
+      }
+    }
+
+    private Object fullElement(Object frame)
+    {
+      try {
+        return (StackTraceElement)toStackTraceElement.invokeExact(frame);
+      }
+      catch(Throwable unused) {
+        return null;
+      }
+    }
+  }
+
+  /** Fallback locator for Java 8, using stack trace of a throwable created on caller thread. */
+  private static final class StackTraceLocator extends CallerLocator
+  {
+    @Override
+    public StackTraceElement locate(LocationCapture capture)
+    {
+      for(StackTraceElement element : new Throwable().getStackTrace()) {
+        if(!isLoggerFrame(element.getClassName())) {
+          return element;
+        }
+      }
+      return null;
+    }
+  }
+}
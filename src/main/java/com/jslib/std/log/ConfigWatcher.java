@@ -0,0 +1,79 @@
+package com.jslib.std.log;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Watch configuration properties file and invoke change listener when file is created or modified. Watch service
+ * monitors directories, not files, so this watcher registers file parent directory and filters events by file name.
+ * Watcher runs on its own daemon thread that is blocked on watch service till next file system event.
+ */
+class ConfigWatcher implements Runnable
+{
+  private final Path file;
+  private final Runnable listener;
+  private final WatchService watchService;
+  private final Thread thread;
+
+  public ConfigWatcher(Path file, Runnable listener) throws IOException
+  {
+    this.file = file.toAbsolutePath();
+    this.listener = listener;
+    this.watchService = FileSystems.getDefault().newWatchService();
+    this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+    this.thread = new Thread(this, "std-log-config-watcher");
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  @Override
+  public void run()
+  {
+    for(;;) {
+      WatchKey key;
+      try {
+        key = watchService.take();
+      }
+      catch(InterruptedException | ClosedWatchServiceException e) {
+        break;
+      }
+
+      boolean changed = false;
+      for(WatchEvent<?> event : key.pollEvents()) {
+        // on overflow events are lost and file could be changed
+        if(event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(event.context())) {
+          changed = true;
+        }
+      }
+      if(changed) {
+        try {
+          listener.run();
+        }
+        catch(Throwable t) {
+          System.err.printf("Fail to reload configuration file %s. Root cause: %s: %s%n", file, t.getClass().getCanonicalName(), t.getMessage());
+        }
+      }
+      if(!key.reset()) {
+        System.err.printf("Configuration file %s parent directory is not accessible anymore. Stop watching.%n", file);
+        break;
+      }
+    }
+  }
+
+  public void close()
+  {
+    try {
+      watchService.close();
+    }
+    catch(IOException e) {
+      System.err.printf("Fail to close configuration watcher. Root cause: %s: %s%n", e.getClass().getCanonicalName(), e.getMessage());
+    }
+  }
+}
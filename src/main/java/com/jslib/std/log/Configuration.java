@@ -5,9 +5,9 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
-import java.util.ArrayList;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -24,17 +24,128 @@ class Configuration implements LogConfig
   private static final String PROP_LOG_TRANSACTION = "log.transaction";
   private static final String PROP_LOG_SERVER = "log.server";
   private static final String PROP_CONSOLE_PRINTER = "console.printer";
+  private static final String PROP_QUEUE_CAPACITY = "queue.capacity";
+  private static final String PROP_QUEUE_OVERFLOW = "queue.overflow";
+  private static final String PROP_QUEUE_OVERFLOW_LEVEL = "queue.overflow.level";
+  private static final String PROP_BATCH_SIZE = "batch.size";
+  private static final String PROP_BATCH_LINGER = "batch.linger";
+  private static final String PROP_TIMESTAMP_PRECISION = "timestamp.precision";
+  private static final String PROP_TEMPLATE_CACHE_SIZE = "template.cache.size";
+  private static final String PROP_CONFIG_WATCH = "config.watch";
+  private static final String PROP_LOG_FILTER = "log.filter";
+  private static final String PROP_GELF_COMPRESSION = "gelf.compression";
+  private static final String PROP_GELF_COMPRESSION_THRESHOLD = "gelf.compression.threshold";
+  private static final String PROP_GELF_CHUNK_SIZE = "gelf.chunk.size";
+  private static final String PROP_SINK_QUEUE_CAPACITY = "sink.queue.capacity";
+  private static final String PROP_GELF_TCP_PENDING_SIZE = "gelf.tcp.pending.size";
+  private static final String PROP_GELF_TCP_WRITE_TIMEOUT = "gelf.tcp.write.timeout";
+  private static final String PROP_TRANSACTION_MAX_RECORDS = "transaction.max.records";
+  private static final String PROP_TRANSACTION_MAX_BYTES = "transaction.max.bytes";
+  private static final String PROP_TRANSACTION_SPILL = "transaction.spill";
+  private static final String PROP_RECORDER_CAPACITY = "recorder.capacity";
+  private static final String PROP_RECORDER_THRESHOLD = "recorder.threshold";
+  private static final String PROP_RECORDER_TRIGGER = "recorder.trigger";
+  private static final String PROP_SUPPRESSED_SUMMARY_PERIOD = "suppressed.summary.period";
+  private static final String PROP_SUPPLIER_EAGER = "supplier.eager";
+  private static final String PROP_STACK_DEPTH = "stack.depth";
+  private static final String PROP_STACK_FILTER = "stack.filter";
+  private static final String PROP_STACK_DEDUP_TTL = "stack.dedup.ttl";
+  private static final String PROP_FILE_PATH = "file.path";
+  private static final String PROP_FILE_SEGMENT_SIZE = "file.segment.size";
+  private static final String PROP_FILE_ROLLOVER_PERIOD = "file.rollover.period";
+  private static final String PROP_FILE_COMPRESS = "file.compress";
 
   private static final String LEVEL_PREFIX = "level.";
+  private static final String LOCATION_PREFIX = "location.";
+  private static final String RATE_PREFIX = "rate.";
+  private static final String SAMPLE_PREFIX = "sample.";
+  private static final String ROOT_PATTERN = "root";
   private static final String STDOUT = "stdout";
 
+  private static final int DEF_QUEUE_CAPACITY = 8192;
+  private static final int DEF_BATCH_SIZE = 256;
+  private static final int DEF_TEMPLATE_CACHE_SIZE = 4096;
+  /** Default linger time, in microseconds, for sender thread waiting to complete a batch. */
+  private static final int DEF_BATCH_LINGER = 1000;
+  /** Default payload size, in bytes, above which GELF UDP payload is compressed, if compression is enabled. */
+  private static final int DEF_GELF_COMPRESSION_THRESHOLD = 1024;
+  /** Default maximum GELF UDP datagram size, in bytes, fit for common Ethernet MTU. */
+  private static final int DEF_GELF_CHUNK_SIZE = 1420;
+  /** Default number of encoded batches a sink can hold before dropping. */
+  private static final int DEF_SINK_QUEUE_CAPACITY = 64;
+  /** Default maximum bytes waiting to be written on GELF TCP connection. */
+  private static final int DEF_GELF_TCP_PENDING_SIZE = 4 * 1024 * 1024;
+  /** Default maximum time, in milliseconds, sender waits for room on GELF TCP pending buffer. */
+  private static final int DEF_GELF_TCP_WRITE_TIMEOUT = 1000;
+  /** Default maximum number of log records buffered by a transaction. */
+  private static final int DEF_TRANSACTION_MAX_RECORDS = 4096;
+  /** Default maximum estimated size, in bytes, of log records buffered by a transaction. */
+  private static final int DEF_TRANSACTION_MAX_BYTES = 4 * 1024 * 1024;
+  /** Default period, in seconds, for suppressed records summary. */
+  private static final int DEF_SUPPRESSED_SUMMARY_PERIOD = 60;
+  /** Default log file segment size, in bytes. */
+  private static final int DEF_FILE_SEGMENT_SIZE = 64 * 1024 * 1024;
+
   private boolean logTransaction;
+
+  // levels, locations and sampling configuration is staged, guarded by this instance lock, and applied on commit
+
   private Level rootLevel;
-  private List<LevelConfig> levelsConfig;
+  private final Map<String, Level> levelsConfig;
+  private LocationCapture rootLocation;
+  private final Map<String, LocationCapture> locationsConfig;
+  private LogSampling rootSampling;
+  private final Map<String, LogSampling> samplingsConfig;
+
+  /** Compiled levels patterns, replaced as a whole on commit. */
+  private volatile LoggerTrie<Level> levels;
+  private volatile LoggerTrie<LocationCapture> locations;
+  private volatile LoggerTrie<LogSampling> samplings;
+  private volatile LevelListener levelListener;
+
+  /** Staged log filter, applied on commit; null if filter is cleared. */
+  private LogFilter stagedFilter;
+  /** Committed log filter, null if there is no filter. */
+  private volatile LogFilter filter;
+  /** Optional watcher for configuration file, null if not enabled. */
+  private ConfigWatcher watcher;
+  private final String propertiesPath;
+
   private URI serverAddress;
   private String consolePrinter;
   private final Map<String, String> contextParameters;
 
+  private final int queueCapacity;
+  private final OverflowPolicy queueOverflow;
+  private final Level queueOverflowLevel;
+  private final int batchSize;
+  private final int batchLinger;
+  private final LogClock.Precision timestampPrecision;
+  private final int templateCacheSize;
+  private final GelfCompression gelfCompression;
+  private final int gelfCompressionThreshold;
+  private final int gelfChunkSize;
+  private final int sinkQueueCapacity;
+  private final int gelfTcpPendingSize;
+  private final int gelfTcpWriteTimeout;
+  private final int transactionMaxRecords;
+  private final int transactionMaxBytes;
+  private final TransactionSpill transactionSpill;
+  private final int recorderCapacity;
+  private final Level recorderThreshold;
+  private final Level recorderTrigger;
+  /** Rate limits compiled by logger patterns, null if there are no rate limits. */
+  private final LoggerTrie<RateLimiter.Rate> rateLimits;
+  private final int suppressedSummaryPeriod;
+  private final boolean supplierEager;
+  private final int stackDepth;
+  private final String[] stackFilter;
+  private final int stackDedupTtl;
+  private final String filePath;
+  private final int fileSegmentSize;
+  private final int fileRolloverPeriod;
+  private final boolean fileCompress;
+
   public Configuration()
   {
     Properties properties = new Properties();
@@ -46,43 +157,243 @@ class Configuration implements LogConfig
       System.err.printf("Fail to load configuration properties. Root cause: %s: %s%n", e.getClass().getCanonicalName(), e.getMessage());
     }
 
-    this.levelsConfig = new ArrayList<>();
-    Level rootLevel = Level.ALL;
+    this.levelsConfig = new HashMap<>();
+    this.locationsConfig = new HashMap<>();
+    this.samplingsConfig = new HashMap<>();
+    loadLevels(properties);
+    this.levels = new LoggerTrie<>(rootLevel, levelsConfig);
+    this.locations = new LoggerTrie<>(rootLocation, locationsConfig);
+    this.samplings = new LoggerTrie<>(rootSampling, samplingsConfig);
 
     this.contextParameters = new HashMap<>();
-
     for(Object key : properties.keySet()) {
       String propertyName = (String)key;
       if(propertyName.startsWith(CONTEXT_PARAMETERS_PREFIX)) {
         this.contextParameters.put(propertyName.substring(CONTEXT_PARAMETERS_PREFIX.length()), properties.getProperty(propertyName));
-        continue;
       }
+    }
+
+    this.logTransaction = Boolean.parseBoolean(properties.getProperty(PROP_LOG_TRANSACTION));
+
+    String serverAddress = properties.getProperty(PROP_LOG_SERVER);
+    if(serverAddress != null) {
+      this.serverAddress = URI.create(serverAddress);
+    }
+
+    this.consolePrinter = properties.getProperty(PROP_CONSOLE_PRINTER, STDOUT);
+
+    this.queueCapacity = integer(properties, PROP_QUEUE_CAPACITY, DEF_QUEUE_CAPACITY);
+    this.queueOverflow = OverflowPolicy.valueOf(properties.getProperty(PROP_QUEUE_OVERFLOW, OverflowPolicy.BLOCK.name()));
+    this.queueOverflowLevel = Level.valueOf(properties.getProperty(PROP_QUEUE_OVERFLOW_LEVEL, Level.WARN.name()));
+    this.batchSize = Math.max(1, integer(properties, PROP_BATCH_SIZE, DEF_BATCH_SIZE));
+    this.batchLinger = Math.max(0, integer(properties, PROP_BATCH_LINGER, DEF_BATCH_LINGER));
+    this.timestampPrecision = LogClock.Precision.valueOf(properties.getProperty(PROP_TIMESTAMP_PRECISION, LogClock.Precision.MILLIS.name()));
+    this.templateCacheSize = integer(properties, PROP_TEMPLATE_CACHE_SIZE, DEF_TEMPLATE_CACHE_SIZE);
+    this.gelfCompression = GelfCompression.valueOf(properties.getProperty(PROP_GELF_COMPRESSION, GelfCompression.NONE.name()));
+    this.gelfCompressionThreshold = Math.max(0, integer(properties, PROP_GELF_COMPRESSION_THRESHOLD, DEF_GELF_COMPRESSION_THRESHOLD));
+    this.gelfChunkSize = Math.max(64, integer(properties, PROP_GELF_CHUNK_SIZE, DEF_GELF_CHUNK_SIZE));
+    this.sinkQueueCapacity = Math.max(1, integer(properties, PROP_SINK_QUEUE_CAPACITY, DEF_SINK_QUEUE_CAPACITY));
+    this.gelfTcpPendingSize = Math.max(1024, integer(properties, PROP_GELF_TCP_PENDING_SIZE, DEF_GELF_TCP_PENDING_SIZE));
+    this.gelfTcpWriteTimeout = Math.max(0, integer(properties, PROP_GELF_TCP_WRITE_TIMEOUT, DEF_GELF_TCP_WRITE_TIMEOUT));
+    this.transactionMaxRecords = Math.max(1, integer(properties, PROP_TRANSACTION_MAX_RECORDS, DEF_TRANSACTION_MAX_RECORDS));
+    this.transactionMaxBytes = Math.max(1, integer(properties, PROP_TRANSACTION_MAX_BYTES, DEF_TRANSACTION_MAX_BYTES));
+    this.transactionSpill = TransactionSpill.valueOf(properties.getProperty(PROP_TRANSACTION_SPILL, TransactionSpill.FLUSH.name()));
+    this.recorderCapacity = Math.max(0, integer(properties, PROP_RECORDER_CAPACITY, 0));
+    this.recorderThreshold = Level.valueOf(properties.getProperty(PROP_RECORDER_THRESHOLD, Level.INFO.name()));
+    this.recorderTrigger = Level.valueOf(properties.getProperty(PROP_RECORDER_TRIGGER, Level.ERROR.name()));
+    this.rateLimits = rateLimits(properties);
+    this.suppressedSummaryPeriod = Math.max(1, integer(properties, PROP_SUPPRESSED_SUMMARY_PERIOD, DEF_SUPPRESSED_SUMMARY_PERIOD));
+    this.supplierEager = Boolean.parseBoolean(properties.getProperty(PROP_SUPPLIER_EAGER));
+    this.stackDepth = Math.max(0, integer(properties, PROP_STACK_DEPTH, 0));
+    this.stackFilter = list(properties.getProperty(PROP_STACK_FILTER));
+    this.stackDedupTtl = Math.max(0, integer(properties, PROP_STACK_DEDUP_TTL, 0));
+    this.filePath = properties.getProperty(PROP_FILE_PATH);
+    this.fileSegmentSize = Math.max(4096, integer(properties, PROP_FILE_SEGMENT_SIZE, DEF_FILE_SEGMENT_SIZE));
+    this.fileRolloverPeriod = Math.max(0, integer(properties, PROP_FILE_ROLLOVER_PERIOD, 0));
+    this.fileCompress = Boolean.parseBoolean(properties.getProperty(PROP_FILE_COMPRESS, "true"));
+
+    String filterExpression = properties.getProperty(PROP_LOG_FILTER);
+    if(filterExpression != null && !filterExpression.trim().isEmpty()) {
+      try {
+        this.stagedFilter = LogFilter.compile(filterExpression);
+        this.filter = this.stagedFilter;
+      }
+      catch(IllegalArgumentException e) {
+        System.err.printf("Ignore log filter. Root cause: %s: %s%n", e.getClass().getCanonicalName(), e.getMessage());
+      }
+    }
 
-      if(!propertyName.startsWith(LEVEL_PREFIX)) {
+    this.propertiesPath = System.getProperty(SYSTEM_PROPERTY);
+    if(propertiesPath != null && Boolean.parseBoolean(properties.getProperty(PROP_CONFIG_WATCH))) {
+      try {
+        this.watcher = new ConfigWatcher(Paths.get(propertiesPath), this::reload);
+      }
+      catch(IOException e) {
+        System.err.printf("Fail to watch configuration file %s. Root cause: %s: %s%n", propertiesPath, e.getClass().getCanonicalName(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Load levels, locations and sampling patterns from configuration properties, replacing current staged configuration.
+   * Loaded configuration is not applied till {@link #commit()}. If a level, location or sampling value is not valid
+   * current configuration is not changed.
+   * 
+   * @param properties configuration properties.
+   * @throws IllegalArgumentException if a level, location or sampling value is not valid.
+   */
+  private synchronized void loadLevels(Properties properties)
+  {
+    Map<String, Level> levelsConfig = new HashMap<>();
+    Level rootLevel = Level.ALL;
+    Map<String, LocationCapture> locationsConfig = new HashMap<>();
+    LocationCapture rootLocation = LocationCapture.FULL;
+    Map<String, LogSampling> samplingsConfig = new HashMap<>();
+    LogSampling rootSampling = null;
+
+    for(Object key : properties.keySet()) {
+      String propertyName = (String)key;
+
+      if(propertyName.startsWith(LEVEL_PREFIX)) {
+        String loggerPattern = propertyName.substring(LEVEL_PREFIX.length());
+        Level level = Level.valueOf(properties.getProperty(propertyName));
+
+        if(loggerPattern.equals(ROOT_PATTERN)) {
+          rootLevel = level;
+          continue;
+        }
+        levelsConfig.put(loggerPattern, level);
         continue;
       }
-      String loggerPattern = propertyName.substring(LEVEL_PREFIX.length());
-      Level level = Level.valueOf(properties.getProperty(propertyName));
 
-      if(loggerPattern.equals("root")) {
-        rootLevel = level;
+      if(propertyName.startsWith(LOCATION_PREFIX)) {
+        String loggerPattern = propertyName.substring(LOCATION_PREFIX.length());
+        LocationCapture location = LocationCapture.valueOf(properties.getProperty(propertyName));
+
+        if(loggerPattern.equals(ROOT_PATTERN)) {
+          rootLocation = location;
+          continue;
+        }
+        locationsConfig.put(loggerPattern, location);
         continue;
       }
-      this.levelsConfig.add(new LevelConfig(loggerPattern, level));
+
+      if(propertyName.startsWith(SAMPLE_PREFIX)) {
+        String loggerPattern = propertyName.substring(SAMPLE_PREFIX.length());
+        LogSampling sampling = LogSampling.parse(properties.getProperty(propertyName));
+
+        if(loggerPattern.equals(ROOT_PATTERN)) {
+          rootSampling = sampling;
+          continue;
+        }
+        samplingsConfig.put(loggerPattern, sampling);
+      }
     }
 
-    // comparator reverses (x, y) order for descendant sort, longer pattern string firsts
-    this.levelsConfig.sort((x, y) -> Integer.compare(y.loggerPattern.length(), x.loggerPattern.length()));
     this.rootLevel = rootLevel;
+    this.levelsConfig.clear();
+    this.levelsConfig.putAll(levelsConfig);
+    this.rootLocation = rootLocation;
+    this.locationsConfig.clear();
+    this.locationsConfig.putAll(locationsConfig);
+    this.rootSampling = rootSampling;
+    this.samplingsConfig.clear();
+    this.samplingsConfig.putAll(samplingsConfig);
+  }
 
-    this.logTransaction = Boolean.parseBoolean(properties.getProperty(PROP_LOG_TRANSACTION));
+  /**
+   * Reload levels and locations from configuration file and commit them. Runtime changes not present in configuration
+   * file are lost. Other configuration properties are not reloaded and need restart.
+   */
+  void reload()
+  {
+    Properties properties = new Properties();
+    try (InputStream propertiesStream = new FileInputStream(propertiesPath)) {
+      properties.load(propertiesStream);
+    }
+    catch(IOException e) {
+      System.err.printf("Fail to reload configuration properties. Root cause: %s: %s%n", e.getClass().getCanonicalName(), e.getMessage());
+      return;
+    }
 
-    String serverAddress = properties.getProperty(PROP_LOG_SERVER);
-    if(serverAddress != null) {
-      this.serverAddress = URI.create(serverAddress);
+    synchronized(this) {
+      try {
+        loadLevels(properties);
+      }
+      catch(IllegalArgumentException e) {
+        System.err.printf("Invalid levels configuration. Keep current levels. Root cause: %s: %s%n", e.getClass().getCanonicalName(), e.getMessage());
+        return;
+      }
+      commit();
     }
+  }
 
-    this.consolePrinter = properties.getProperty(PROP_CONSOLE_PRINTER, STDOUT);
+  public void close()
+  {
+    if(watcher != null) {
+      watcher.close();
+    }
+  }
+
+  /**
+   * Load rate limits configured by logger patterns. Invalid rate limits are reported on standard error and ignored.
+   * 
+   * @param properties configuration properties.
+   * @return rate limits trie or null if there are no rate limits.
+   */
+  private static LoggerTrie<RateLimiter.Rate> rateLimits(Properties properties)
+  {
+    RateLimiter.Rate rootRate = null;
+    Map<String, RateLimiter.Rate> rates = new HashMap<>();
+    for(Object key : properties.keySet()) {
+      String propertyName = (String)key;
+      if(!propertyName.startsWith(RATE_PREFIX)) {
+        continue;
+      }
+      String loggerPattern = propertyName.substring(RATE_PREFIX.length());
+      try {
+        RateLimiter.Rate rate = RateLimiter.Rate.parse(properties.getProperty(propertyName));
+        if(loggerPattern.equals(ROOT_PATTERN)) {
+          rootRate = rate;
+        }
+        else {
+          rates.put(loggerPattern, rate);
+        }
+      }
+      catch(IllegalArgumentException e) {
+        System.err.printf("Ignore rate limit %s. Root cause: %s: %s%n", propertyName, e.getClass().getCanonicalName(), e.getMessage());
+      }
+    }
+    return rootRate != null || !rates.isEmpty() ? new LoggerTrie<>(rootRate, rates) : null;
+  }
+
+  /**
+   * Split comma separated list, trimming items and ignoring empty ones.
+   * 
+   * @param value comma separated list, possible null.
+   * @return list items, empty if value is null.
+   */
+  private static String[] list(String value)
+  {
+    if(value == null) {
+      return new String[0];
+    }
+    return Arrays.stream(value.split(",")).map(String::trim).filter(item -> !item.isEmpty()).toArray(String[]::new);
+  }
+
+  private static int integer(Properties properties, String propertyName, int defaultValue)
+  {
+    String value = properties.getProperty(propertyName);
+    if(value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    }
+    catch(NumberFormatException e) {
+      System.err.printf("Invalid numeric value for configuration property %s: %s. Use default %d.%n", propertyName, value, defaultValue);
+      return defaultValue;
+    }
   }
 
   private static InputStream propertiesStream() throws FileNotFoundException
@@ -101,7 +412,7 @@ class Configuration implements LogConfig
 
   public void setLevelListener(LevelListener listener)
   {
-
+    this.levelListener = listener;
   }
 
   public boolean isLogTransaction()
@@ -127,70 +438,145 @@ class Configuration implements LogConfig
     return serverAddress;
   }
 
+  /**
+   * Stage root level change. Change is not visible to loggers till {@link #commit()}.
+   * 
+   * @param level root level.
+   */
   @Override
-  public void setRootLevel(Level level)
+  public synchronized void setRootLevel(Level level)
   {
-    // TODO Auto-generated method stub
-
+    this.rootLevel = level;
   }
 
+  /**
+   * Get committed root level.
+   * 
+   * @return root level.
+   */
   @Override
   public Level getRootLevel()
   {
-    return rootLevel;
+    return levels.getRootValue();
   }
 
+  /**
+   * Stage level change for logger pattern, that is, logger name or dot separated prefix. Change is not visible to
+   * loggers till {@link #commit()}.
+   * 
+   * @param loggerName logger pattern,
+   * @param level logger level.
+   */
   @Override
-  public void setLoggerLevel(String loggerName, Level level)
+  public synchronized void setLoggerLevel(String loggerName, Level level)
   {
-    // TODO Auto-generated method stub
-
+    if(loggerName.equals(ROOT_PATTERN)) {
+      this.rootLevel = level;
+      return;
+    }
+    levelsConfig.put(loggerName, level);
   }
 
   @Override
   public Level getLoggerLevel(String loggerName)
   {
-    for(LevelConfig config : levelsConfig) {
-      if(loggerName.startsWith(config.loggerPattern)) {
-        return config.level;
-      }
-    }
-    return rootLevel;
+    return levels.get(loggerName);
   }
 
-  @Override
-  public void clearLoggerLevel(String loggerName)
+  /**
+   * Get caller location details to capture for named logger, as configured by <code>location.*</code> properties.
+   * Default, if not configured, is {@link LocationCapture#FULL}.
+   * 
+   * @param loggerName logger name.
+   * @return location capture mode for logger.
+   */
+  public LocationCapture getLoggerLocation(String loggerName)
   {
-    // TODO Auto-generated method stub
+    return locations.get(loggerName);
+  }
 
+  /**
+   * Get records sampling for named logger, as configured by <code>sample.*</code> properties.
+   * 
+   * @param loggerName logger name.
+   * @return logger sampling or null if logger records are not sampled.
+   */
+  public LogSampling getLoggerSampling(String loggerName)
+  {
+    return samplings.get(loggerName);
   }
 
+  /**
+   * Stage removal of level configured for logger pattern, so that logger inherits level from parent pattern or root.
+   * Change is not visible to loggers till {@link #commit()}.
+   * 
+   * @param loggerName logger pattern.
+   */
   @Override
-  public void commit()
+  public synchronized void clearLoggerLevel(String loggerName)
   {
-    // TODO Auto-generated method stub
-
+    levelsConfig.remove(loggerName);
   }
 
+  /**
+   * Apply staged levels, locations and filter changes. Compiled patterns are rebuilt and replaced as a whole and level
+   * listener is notified to update live loggers. Logging path is not locked; it sees either previous or new
+   * configuration.
+   */
   @Override
-  public void setFilter(String filter)
+  public synchronized void commit()
   {
-    // TODO Auto-generated method stub
+    levels = new LoggerTrie<>(rootLevel, levelsConfig);
+    locations = new LoggerTrie<>(rootLocation, locationsConfig);
+    samplings = new LoggerTrie<>(rootSampling, samplingsConfig);
+    filter = stagedFilter;
+
+    LevelListener listener = levelListener;
+    if(listener != null) {
+      listener.onLevelChange();
+    }
+  }
 
+  /**
+   * Compile and stage log filter expression, see {@link LogFilter} for syntax. Filter is not applied till
+   * {@link #commit()}.
+   * 
+   * @param filter log filter expression.
+   * @throws IllegalArgumentException if filter expression is not valid.
+   */
+  @Override
+  public synchronized void setFilter(String filter)
+  {
+    this.stagedFilter = LogFilter.compile(filter);
   }
 
+  /**
+   * Get committed log filter expression.
+   * 
+   * @return log filter expression or null if there is no filter.
+   */
   @Override
   public String getFilter()
   {
-    // TODO Auto-generated method stub
-    return null;
+    LogFilter filter = this.filter;
+    return filter != null ? filter.getExpression() : null;
   }
 
+  /** Stage log filter removal. Filter is still applied till {@link #commit()}. */
   @Override
-  public void clearFilter()
+  public synchronized void clearFilter()
   {
-    // TODO Auto-generated method stub
+    this.stagedFilter = null;
+  }
 
+  /**
+   * Get committed log filter, used on logging path.
+   * 
+   * @return compiled log filter or null if there is no filter.
+   */
+  public LogFilter getLogFilter()
+  {
+    return filter;
   }
 
   @FunctionalInterface
@@ -199,20 +585,251 @@ class Configuration implements LogConfig
     void onLevelChange();
   }
 
-  private static class LevelConfig
+  public String getConsolePrinter()
   {
-    public final String loggerPattern;
-    public final Level level;
+    return consolePrinter;
+  }
 
-    public LevelConfig(String loggerPattern, Level level)
-    {
-      this.loggerPattern = loggerPattern;
-      this.level = level;
-    }
+  public int getQueueCapacity()
+  {
+    return queueCapacity;
   }
 
-  public String getConsolePrinter()
+  public OverflowPolicy getQueueOverflow()
   {
-    return consolePrinter;
+    return queueOverflow;
+  }
+
+  public Level getQueueOverflowLevel()
+  {
+    return queueOverflowLevel;
+  }
+
+  public int getBatchSize()
+  {
+    return batchSize;
+  }
+
+  /**
+   * Get time, in microseconds, sender thread waits for more records to complete a batch.
+   * 
+   * @return batch linger time, in microseconds.
+   */
+  public int getBatchLinger()
+  {
+    return batchLinger;
+  }
+
+  public LogClock.Precision getTimestampPrecision()
+  {
+    return timestampPrecision;
+  }
+
+  /**
+   * Get maximum number of compiled message templates kept in cache.
+   * 
+   * @return template cache size.
+   */
+  public int getTemplateCacheSize()
+  {
+    return templateCacheSize;
+  }
+
+  public GelfCompression getGelfCompression()
+  {
+    return gelfCompression;
+  }
+
+  /**
+   * Get GELF UDP payload size, in bytes, from which payload is compressed. Smaller payloads are sent uncompressed since
+   * compression overhead is not worth it.
+   * 
+   * @return compression threshold, in bytes.
+   */
+  public int getGelfCompressionThreshold()
+  {
+    return gelfCompressionThreshold;
+  }
+
+  /**
+   * Get maximum GELF UDP datagram size, in bytes. Larger payloads are sent in GELF chunks.
+   * 
+   * @return maximum datagram size, in bytes.
+   */
+  public int getGelfChunkSize()
+  {
+    return gelfChunkSize;
+  }
+
+  /**
+   * Get maximum number of encoded bytes waiting to be written on GELF TCP connection.
+   * 
+   * @return pending bytes limit.
+   */
+  public int getGelfTcpPendingSize()
+  {
+    return gelfTcpPendingSize;
+  }
+
+  /**
+   * Get maximum time, in milliseconds, sender thread waits for room on GELF TCP pending buffer before dropping records.
+   * 
+   * @return write timeout, in milliseconds.
+   */
+  public int getGelfTcpWriteTimeout()
+  {
+    return gelfTcpWriteTimeout;
+  }
+
+  /**
+   * Get the number of encoded batches every sink can hold while its destination is busy. When sink queue is full new
+   * batches are dropped for that sink.
+   * 
+   * @return sink queue capacity, in batches.
+   */
+  public int getSinkQueueCapacity()
+  {
+    return sinkQueueCapacity;
+  }
+
+  public int getTransactionMaxRecords()
+  {
+    return transactionMaxRecords;
+  }
+
+  /**
+   * Get maximum estimated size of log records buffered by a transaction, see {@link GelfRecord#estimateSize()}.
+   * 
+   * @return transaction buffer limit, in bytes.
+   */
+  public int getTransactionMaxBytes()
+  {
+    return transactionMaxBytes;
+  }
+
+  public TransactionSpill getTransactionSpill()
+  {
+    return transactionSpill;
+  }
+
+  /**
+   * Get the number of log records kept in memory, per thread, by flight recorder.
+   * 
+   * @return flight recorder capacity, zero if flight recorder is disabled.
+   */
+  public int getRecorderCapacity()
+  {
+    return recorderCapacity;
+  }
+
+  /**
+   * Get the level below which log records are kept by flight recorder instead of being sent.
+   * 
+   * @return flight recorder threshold level.
+   */
+  public Level getRecorderThreshold()
+  {
+    return recorderThreshold;
+  }
+
+  /**
+   * Get the level at or above which a log record flushes its thread flight recorder before being sent.
+   * 
+   * @return flight recorder trigger level.
+   */
+  public Level getRecorderTrigger()
+  {
+    return recorderTrigger;
+  }
+
+  /**
+   * Get rate limits for log message templates, by logger patterns.
+   * 
+   * @return rate limits or null if rate limiting is not configured.
+   */
+  public LoggerTrie<RateLimiter.Rate> getRateLimits()
+  {
+    return rateLimits;
+  }
+
+  /**
+   * Get the period for summary records reporting the number of records suppressed by rate limits.
+   * 
+   * @return summary period, in seconds.
+   */
+  public int getSuppressedSummaryPeriod()
+  {
+    return suppressedSummaryPeriod;
+  }
+
+  /**
+   * Test if {@link java.util.function.Supplier} arguments are resolved by thread writing log record. By default
+   * suppliers are resolved on sender thread, that requires suppliers to be thread safe.
+   * 
+   * @return true if suppliers are resolved eagerly, on writer thread.
+   */
+  public boolean isSupplierEager()
+  {
+    return supplierEager;
+  }
+
+  /**
+   * Get maximum number of stack frames rendered per exception on dumped stack traces.
+   * 
+   * @return stack trace depth, zero for no limit.
+   */
+  public int getStackDepth()
+  {
+    return stackDepth;
+  }
+
+  /**
+   * Get packages prefixes for stack frames skipped on dumped stack traces.
+   * 
+   * @return filtered packages, possible empty.
+   */
+  public String[] getStackFilter()
+  {
+    return stackFilter;
+  }
+
+  /**
+   * Get time a dumped stack trace is rendered as reference only, if the same stack trace is dumped again.
+   * 
+   * @return deduplication time to live, in seconds, zero if stack traces deduplication is disabled.
+   */
+  public int getStackDedupTtl()
+  {
+    return stackDedupTtl;
+  }
+
+  /**
+   * Get log files path prefix, that is, directory and base name of log segment files.
+   * 
+   * @return log files path, null if file sink is not enabled.
+   */
+  public String getFilePath()
+  {
+    return filePath;
+  }
+
+  public int getFileSegmentSize()
+  {
+    return fileSegmentSize;
+  }
+
+  /**
+   * Get maximum age of a log file segment before it is rolled over.
+   * 
+   * @return rollover period, in seconds, zero if segments are rolled over only on size.
+   */
+  public int getFileRolloverPeriod()
+  {
+    return fileRolloverPeriod;
+  }
+
+  public boolean isFileCompress()
+  {
+    return fileCompress;
   }
 }
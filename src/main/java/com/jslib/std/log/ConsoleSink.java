@@ -0,0 +1,32 @@
+package com.jslib.std.log;
+
+import java.io.IOException;
+import java.io.PrintStream;
+
+/** Sink writing encoded batches, as they are, to standard output or error stream. */
+class ConsoleSink extends Sink
+{
+  private final PrintStream printer;
+
+  public ConsoleSink(PrintStream printer, int queueCapacity)
+  {
+    super("console", queueCapacity);
+    this.printer = printer;
+  }
+
+  @Override
+  protected void write(EncodedBatch batch) throws IOException
+  {
+    printer.write(batch.bytes(), 0, batch.length());
+    printer.flush();
+    if(printer.checkError()) {
+      throw new IOException("Console stream error.");
+    }
+  }
+
+  @Override
+  protected void closeSink()
+  {
+    // standard streams are not owned by sink
+  }
+}
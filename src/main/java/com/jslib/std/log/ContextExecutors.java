@@ -0,0 +1,255 @@
+package com.jslib.std.log;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Wrappers propagating log context to tasks executed by other threads. Log context is captured, when task is wrapped,
+ * as a reference to current context snapshot, see {@link LogContextSnapshot}; executing thread installs captured
+ * snapshot for task duration and restores its own context after. Capture and install are constant time and there is no
+ * allocation beyond task wrapper.
+ * <p>
+ * Only log context is propagated. Log transaction state is not: transaction buffer belongs to the thread that begins
+ * the transaction and is not thread safe.
+ */
+public final class ContextExecutors
+{
+  private ContextExecutors()
+  {
+  }
+
+  /**
+   * Wrap runnable task to run with log context of current thread.
+   *
+   * @param task runnable task.
+   * @return context propagating task.
+   */
+  public static Runnable wrap(Runnable task)
+  {
+    LogContextSnapshot captured = LogContextImpl.get().snapshot();
+    return () -> {
+      LogContextImpl context = LogContextImpl.get();
+      LogContextSnapshot previous = context.snapshot();
+      context.restore(captured);
+      try {
+        task.run();
+      }
+      finally {
+        context.restore(previous);
+      }
+    };
+  }
+
+  /**
+   * Wrap callable task to run with log context of current thread.
+   *
+   * @param task callable task.
+   * @param <T> task result type.
+   * @return context propagating task.
+   */
+  public static <T> Callable<T> wrap(Callable<T> task)
+  {
+    LogContextSnapshot captured = LogContextImpl.get().snapshot();
+    return () -> {
+      LogContextImpl context = LogContextImpl.get();
+      LogContextSnapshot previous = context.snapshot();
+      context.restore(captured);
+      try {
+        return task.call();
+      }
+      finally {
+        context.restore(previous);
+      }
+    };
+  }
+
+  /**
+   * Wrap supplier to run with log context of current thread, e.g. for {@link CompletableFuture} stages. Named
+   * differently from {@link #wrap(Callable)} since a lambda returning a value would match both.
+   *
+   * @param supplier value supplier.
+   * @param <T> supplied value type.
+   * @return context propagating supplier.
+   */
+  public static <T> Supplier<T> wrapSupplier(Supplier<T> supplier)
+  {
+    LogContextSnapshot captured = LogContextImpl.get().snapshot();
+    return () -> {
+      LogContextImpl context = LogContextImpl.get();
+      LogContextSnapshot previous = context.snapshot();
+      context.restore(captured);
+      try {
+        return supplier.get();
+      }
+      finally {
+        context.restore(previous);
+      }
+    };
+  }
+
+  /**
+   * Wrap executor so that every executed task runs with log context of the thread submitting it.
+   *
+   * @param executor executor.
+   * @return context propagating executor.
+   */
+  public static Executor wrap(Executor executor)
+  {
+    return task -> executor.execute(wrap(task));
+  }
+
+  /**
+   * Wrap executor service so that every submitted task runs with log context of the thread submitting it. Lifecycle
+   * methods are delegated to wrapped executor service.
+   *
+   * @param executor executor service.
+   * @return context propagating executor service.
+   */
+  public static ExecutorService wrap(ExecutorService executor)
+  {
+    return new ContextExecutorService(executor);
+  }
+
+  /**
+   * Run task asynchronously on given executor, with log context of current thread.
+   *
+   * @param task runnable task,
+   * @param executor executor.
+   * @return completable future.
+   */
+  public static CompletableFuture<Void> runAsync(Runnable task, Executor executor)
+  {
+    return CompletableFuture.runAsync(wrap(task), executor);
+  }
+
+  /**
+   * Supply value asynchronously on given executor, with log context of current thread.
+   *
+   * @param supplier value supplier,
+   * @param executor executor.
+   * @param <T> supplied value type.
+   * @return completable future.
+   */
+  public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor)
+  {
+    return CompletableFuture.supplyAsync(wrapSupplier(supplier), executor);
+  }
+
+  /**
+   * Run task asynchronously on common fork join pool, with log context of current thread.
+   *
+   * @param task runnable task.
+   * @return completable future.
+   */
+  public static CompletableFuture<Void> runAsync(Runnable task)
+  {
+    return CompletableFuture.runAsync(wrap(task));
+  }
+
+  /**
+   * Supply value asynchronously on common fork join pool, with log context of current thread.
+   *
+   * @param supplier value supplier.
+   * @param <T> supplied value type.
+   * @return completable future.
+   */
+  public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier)
+  {
+    return CompletableFuture.supplyAsync(wrapSupplier(supplier));
+  }
+
+  /**
+   * Executor service wrapping tasks before delegating them. Submit methods inherited from abstract executor service end
+   * in {@link #execute(Runnable)}, so that wrapping execute covers them; invoke methods wrap tasks before delegating
+   * since they are executed by wrapped service.
+   */
+  private static final class ContextExecutorService extends AbstractExecutorService
+  {
+    private final ExecutorService executor;
+
+    ContextExecutorService(ExecutorService executor)
+    {
+      this.executor = executor;
+    }
+
+    @Override
+    public void execute(Runnable task)
+    {
+      executor.execute(wrap(task));
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException
+    {
+      return executor.invokeAll(wrapAll(tasks));
+    }
+
+    @Override
+    public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException
+    {
+      return executor.invokeAll(wrapAll(tasks), timeout, unit);
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException
+    {
+      return executor.invokeAny(wrapAll(tasks));
+    }
+
+    @Override
+    public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException
+    {
+      return executor.invokeAny(wrapAll(tasks), timeout, unit);
+    }
+
+    @Override
+    public void shutdown()
+    {
+      executor.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow()
+    {
+      return executor.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown()
+    {
+      return executor.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated()
+    {
+      return executor.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException
+    {
+      return executor.awaitTermination(timeout, unit);
+    }
+
+    private static <T> List<Callable<T>> wrapAll(Collection<? extends Callable<T>> tasks)
+    {
+      List<Callable<T>> wrappedTasks = new ArrayList<>(tasks.size());
+      for(Callable<T> task : tasks) {
+        wrappedTasks.add(wrap(task));
+      }
+      return wrappedTasks;
+    }
+  }
+}
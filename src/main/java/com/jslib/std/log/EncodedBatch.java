@@ -0,0 +1,127 @@
+package com.jslib.std.log;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Batch of encoded records shared by all sinks. Records are encoded once by sender thread, copied into a batch and the
+ * same batch instance is handed to every sink; batch is reference counted and returned to its pool after the last sink
+ * releases it, so that bytes arrays are reused and not allocated per batch.
+ * <p>
+ * Batch content is immutable while shared. Bytes array contains only encoded records, each followed by line separator;
+ * records offsets are stored on starts and ends arrays.
+ */
+class EncodedBatch
+{
+  private final Pool pool;
+  private final AtomicInteger references;
+
+  private byte[] bytes;
+  private int length;
+  private int[] starts;
+  private int[] ends;
+  private int count;
+
+  private EncodedBatch(Pool pool)
+  {
+    this.pool = pool;
+    this.references = new AtomicInteger();
+    this.bytes = new byte[0];
+    this.starts = new int[0];
+    this.ends = new int[0];
+  }
+
+  public byte[] bytes()
+  {
+    return bytes;
+  }
+
+  /**
+   * Get the number of valid bytes from bytes array, that is, encoded records and line separators.
+   *
+   * @return batch length, in bytes.
+   */
+  public int length()
+  {
+    return length;
+  }
+
+  public int[] starts()
+  {
+    return starts;
+  }
+
+  public int[] ends()
+  {
+    return ends;
+  }
+
+  public int count()
+  {
+    return count;
+  }
+
+  /**
+   * Release a reference to this batch. Batch is returned to pool when last reference is released and must not be used
+   * anymore by caller.
+   */
+  public void release()
+  {
+    if(references.decrementAndGet() == 0) {
+      pool.recycle(this);
+    }
+  }
+
+  /** Pool of reusable batches. Idle batches are bounded; batches released when pool is full are discarded. */
+  static class Pool
+  {
+    private final Queue<EncodedBatch> idle;
+
+    public Pool(int maxIdle)
+    {
+      this.idle = new ArrayBlockingQueue<>(Math.max(1, maxIdle));
+    }
+
+    /**
+     * Get a batch filled with a copy of encoded bytes and records offsets.
+     *
+     * @param bytes encoded bytes,
+     * @param length number of encoded bytes,
+     * @param starts records start offsets,
+     * @param ends records end offsets,
+     * @param count number of records,
+     * @param references number of sinks batch is shared with.
+     * @return filled batch.
+     */
+    public EncodedBatch acquire(byte[] bytes, int length, int[] starts, int[] ends, int count, int references)
+    {
+      EncodedBatch batch = idle.poll();
+      if(batch == null) {
+        batch = new EncodedBatch(this);
+      }
+
+      if(batch.bytes.length < length) {
+        batch.bytes = new byte[length];
+      }
+      System.arraycopy(bytes, 0, batch.bytes, 0, length);
+      batch.length = length;
+
+      if(batch.starts.length < count) {
+        batch.starts = new int[count];
+        batch.ends = new int[count];
+      }
+      System.arraycopy(starts, 0, batch.starts, 0, count);
+      System.arraycopy(ends, 0, batch.ends, 0, count);
+      batch.count = count;
+
+      batch.references.set(references);
+      return batch;
+    }
+
+    void recycle(EncodedBatch batch)
+    {
+      idle.offer(batch);
+    }
+  }
+}
@@ -0,0 +1,291 @@
+package com.jslib.std.log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.StandardOpenOption;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sink appending encoded records, as JSON lines, to memory mapped segment files. A segment file is mapped for its whole
+ * size and records are copied into mapped memory, so writing costs memory copies instead of write system calls per
+ * batch; operating system flushes mapped pages to disk.
+ * <p>
+ * Segment file name is configured file path followed by segment creation time and sequence number, e.g.
+ * <code>app.log.20261018-101500.0001</code>, so that segments are sorted by name. Segment files are created new and
+ * names already present on disk, e.g. from a previous run started in the same second, are skipped. Segment is rolled
+ * over when there is no room for next batch or, if configured, when segment age exceeds rollover period; segment age is
+ * checked on write and while sink is idle, so that a segment is rolled even if no more records are written, but an
+ * empty segment is not. On rollover, segment file is unmapped, truncated to written size and, if enabled, compressed to
+ * <code>.gz</code> on a background thread.
+ * <p>
+ * Next segment is opened before current one is closed; if next segment cannot be opened, write fails but sink keeps
+ * current segment and rollover is retried on next write.
+ * <p>
+ * Active segment is preallocated; if process crashes its unwritten tail remains filled with null bytes.
+ */
+class FileSink extends Sink
+{
+  private final String path;
+  private final int segmentSize;
+  private final long rolloverPeriod;
+  private final boolean compress;
+  private final ExecutorService compressor;
+
+  private int segmentSequence;
+  private File segmentFile;
+  private FileChannel segmentChannel;
+  private MappedByteBuffer segment;
+  /** Time, in milliseconds, when current segment should be rolled over; zero if time rollover is not enabled. */
+  private long rolloverTime;
+
+  /**
+   * Create file sink and open its first segment.
+   *
+   * @param path segment files path prefix, that is, directory and base name,
+   * @param segmentSize segment file size, in bytes,
+   * @param rolloverPeriod maximum segment age, in seconds, zero if time rollover is disabled,
+   * @param compress compress rolled segments,
+   * @param queueCapacity sink queue capacity, in batches.
+   * @throws IOException if first segment cannot be created.
+   */
+  public FileSink(String path, int segmentSize, int rolloverPeriod, boolean compress, int queueCapacity) throws IOException
+  {
+    super("file", queueCapacity);
+    this.path = path;
+    this.segmentSize = segmentSize;
+    this.rolloverPeriod = TimeUnit.SECONDS.toMillis(rolloverPeriod);
+    this.compress = compress;
+    this.compressor = Executors.newSingleThreadExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "std-log-file-compressor");
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    File directory = new File(path).getAbsoluteFile().getParentFile();
+    if(directory != null && !directory.exists() && !directory.mkdirs()) {
+      throw new IOException("Cannot create log directory " + directory);
+    }
+    openSegment(segmentSize);
+  }
+
+  @Override
+  protected void write(EncodedBatch batch) throws IOException
+  {
+    if(isRolloverDue()) {
+      rollover(segmentSize);
+    }
+
+    byte[] bytes = batch.bytes();
+    if(batch.length() <= segment.remaining()) {
+      segment.put(bytes, 0, batch.length());
+      return;
+    }
+
+    // batch does not fit current segment; split it on records boundaries so that a record is not split across segments
+    int[] starts = batch.starts();
+    for(int i = 0; i < batch.count(); ++i) {
+      // record line spans till next record start, line separator included
+      int end = i + 1 < batch.count() ? starts[i + 1] : batch.length();
+      int length = end - starts[i];
+      if(length > segment.remaining()) {
+        rollover(Math.max(segmentSize, length));
+      }
+      segment.put(bytes, starts[i], length);
+    }
+  }
+
+  @Override
+  protected void idle() throws IOException
+  {
+    if(isRolloverDue() && segment.position() > 0) {
+      rollover(segmentSize);
+    }
+  }
+
+  @Override
+  protected void closeSink()
+  {
+    try {
+      closeSegment(segmentChannel, segment);
+    }
+    catch(IOException e) {
+      System.err.printf("Fail to close log segment %s. Root cause: %s: %s%n", segmentFile, e.getClass().getCanonicalName(), e.getMessage());
+    }
+    // segment may be unmapped; accessing it could crash virtual machine
+    segment = null;
+
+    compressor.shutdown();
+    try {
+      compressor.awaitTermination(4, TimeUnit.SECONDS);
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private boolean isRolloverDue()
+  {
+    return rolloverTime != 0 && System.currentTimeMillis() >= rolloverTime;
+  }
+
+  private void rollover(int nextSegmentSize) throws IOException
+  {
+    File rolledFile = segmentFile;
+    FileChannel rolledChannel = segmentChannel;
+    MappedByteBuffer rolledSegment = segment;
+    // if next segment open fails current segment is still valid and rollover is retried on next write
+    openSegment(nextSegmentSize);
+
+    try {
+      closeSegment(rolledChannel, rolledSegment);
+    }
+    catch(IOException e) {
+      System.err.printf("Fail to close log segment %s. Root cause: %s: %s%n", rolledFile, e.getClass().getCanonicalName(), e.getMessage());
+      return;
+    }
+    if(compress) {
+      compressor.execute(() -> compress(rolledFile));
+    }
+  }
+
+  /**
+   * Create and map a new segment file and make it current segment. Segment sequence is advanced past names already
+   * used, as plain or compressed segment file, so that an existing segment is never overwritten. Current segment is
+   * changed only if new segment is successfully mapped.
+   *
+   * @param size segment size, in bytes.
+   * @throws IOException if segment file cannot be created or mapped.
+   */
+  private void openSegment(int size) throws IOException
+  {
+    long now = System.currentTimeMillis();
+    String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date(now));
+    File file;
+    FileChannel channel;
+    for(;;) {
+      file = new File(String.format("%s.%s.%04d", path, timestamp, ++segmentSequence));
+      if(new File(file.getPath() + ".gz").exists()) {
+        continue;
+      }
+      try {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        break;
+      }
+      catch(FileAlreadyExistsException ignore) {}
+    }
+
+    try {
+      segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+    catch(IOException e) {
+      channel.close();
+      file.delete();
+      throw e;
+    }
+    segmentFile = file;
+    segmentChannel = channel;
+    rolloverTime = rolloverPeriod > 0 ? now + rolloverPeriod : 0;
+  }
+
+  /**
+   * Force segment content to disk, unmap it and truncate segment file to written size. Mapped buffer must not be used
+   * after this method. If buffer cannot be unmapped, file is not truncated, since truncating a mapped file fails on
+   * some platforms, and its unwritten tail remains filled with null bytes.
+   *
+   * @param channel segment file channel,
+   * @param buffer segment mapped memory.
+   * @throws IOException if segment file operation fails.
+   */
+  private static void closeSegment(FileChannel channel, MappedByteBuffer buffer) throws IOException
+  {
+    try {
+      buffer.force();
+      int writtenSize = buffer.position();
+      if(unmap(buffer)) {
+        channel.truncate(writtenSize);
+      }
+    }
+    finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Release mapped memory now instead of waiting for buffer garbage collection. There is no public API for unmapping;
+   * this method uses <code>Unsafe.invokeCleaner</code> on Java 9 and later and buffer cleaner on Java 8.
+   *
+   * @param buffer mapped buffer.
+   * @return true if buffer was unmapped.
+   */
+  private static boolean unmap(MappedByteBuffer buffer)
+  {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      try {
+        Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        invokeCleaner.invoke(theUnsafe.get(null), buffer);
+        return true;
+      }
+      catch(NoSuchMethodException unused) {
+        // Java 8 direct buffer cleaner
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        cleaner.getClass().getMethod("clean").invoke(cleaner);
+        return true;
+      }
+    }
+    catch(Exception e) {
+      System.err.printf("Fail to unmap log segment. Root cause: %s: %s%n", e.getClass().getCanonicalName(), e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Compress rolled segment file into GZIP file with the same name and <code>.gz</code> extension, then delete segment
+   * file. Compression is written to a temporary file first so that a partial GZIP file is never visible.
+   *
+   * @param file rolled segment file.
+   */
+  private static void compress(File file)
+  {
+    File temporaryFile = new File(file.getPath() + ".gz.tmp");
+    try (InputStream input = new FileInputStream(file); OutputStream output = new GZIPOutputStream(new FileOutputStream(temporaryFile))) {
+      byte[] buffer = new byte[64 * 1024];
+      int length;
+      while((length = input.read(buffer)) != -1) {
+        output.write(buffer, 0, length);
+      }
+    }
+    catch(IOException e) {
+      System.err.printf("Fail to compress log segment %s. Root cause: %s: %s%n", file, e.getClass().getCanonicalName(), e.getMessage());
+      temporaryFile.delete();
+      return;
+    }
+
+    if(!temporaryFile.renameTo(new File(file.getPath() + ".gz"))) {
+      System.err.printf("Fail to rename compressed log segment %s.%n", temporaryFile);
+      return;
+    }
+    if(!file.delete()) {
+      System.err.printf("Fail to delete compressed log segment %s.%n", file);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package com.jslib.std.log;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size ring of log records kept in memory instead of being sent, used to recover records leading to an error. A
+ * ring belongs to a writer thread; when ring is full the oldest record is overwritten. Records are stored as created by
+ * logger, that is, not parsed and not encoded; parsing and encoding happen on sender thread only if ring is flushed.
+ * <p>
+ * Ring is written by its owning thread but can be flushed on demand from any thread, so its methods are synchronized;
+ * in normal operation the lock is not contended.
+ */
+class FlightRecorder
+{
+  private final GelfRecord[] ring;
+  /** Index of the oldest record. */
+  private int head;
+  private int size;
+
+  public FlightRecorder(int capacity)
+  {
+    this.ring = new GelfRecord[capacity];
+  }
+
+  /**
+   * Store record on ring, overwriting the oldest one if ring is full.
+   *
+   * @param record log record.
+   */
+  public synchronized void add(GelfRecord record)
+  {
+    int tail = head + size;
+    ring[tail < ring.length ? tail : tail - ring.length] = record;
+    if(size < ring.length) {
+      ++size;
+    }
+    else if(++head == ring.length) {
+      head = 0;
+    }
+  }
+
+  /**
+   * Publish recorded records to sender queue, oldest first, and empty the ring.
+   *
+   * @param queue sender queue.
+   */
+  public synchronized void flush(RecordQueue queue)
+  {
+    int firstCount = Math.min(size, ring.length - head);
+    queue.putAll(ring, head, firstCount);
+    queue.putAll(ring, 0, size - firstCount);
+    Arrays.fill(ring, null);
+    head = 0;
+    size = 0;
+  }
+
+  public synchronized int size()
+  {
+    return size;
+  }
+}
@@ -0,0 +1,14 @@
+package com.jslib.std.log;
+
+/**
+ * Compression applied to GELF UDP payloads larger than configured threshold, as supported by GELF specification.
+ */
+enum GelfCompression
+{
+  /** Payload is sent as it is. */
+  NONE,
+  /** GZIP format, with header and trailer, as produced by GZIP output stream. */
+  GZIP,
+  /** ZLIB format, that is, deflate stream with ZLIB header and checksum. */
+  ZLIB
+}
@@ -0,0 +1,417 @@
+package com.jslib.std.log;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.function.BiConsumer;
+
+/**
+ * Encoder for GELF records into UTF-8 JSON, writing directly into a reusable bytes buffer. Encoder is owned by sender
+ * thread and is not thread safe. Many records can be appended to the same buffer, e.g. a batch, and buffer is reset
+ * after being consumed; buffer grows on demand and is reused so that encoding does not create garbage on steady state.
+ * <p>
+ * Encoder has fast paths for ASCII strings, integer numbers and fixed precision decimals and avoids any intermediate
+ * strings or streams.
+ */
+class GelfEncoder
+{
+  private static final int DEF_CAPACITY = 64 * 1024;
+  /** Buffer larger than this size, after encoding large records, is discarded on reset instead of being reused. */
+  private static final int MAX_RETAINED_CAPACITY = 1024 * 1024;
+
+  /** Number of decimals for floating point numbers, e.g. timestamp. */
+  private static final long DECIMALS_SCALE = 1000000L;
+  private static final int DECIMALS_COUNT = 6;
+  /** Larger floating point numbers are formatted with standard formatter since scaled value overflows long. */
+  private static final double MAX_FAST_DOUBLE = Long.MAX_VALUE / DECIMALS_SCALE;
+
+  private static final byte[] VERSION = bytes("{\"version\":");
+  private static final byte[] HOST = bytes(",\"host\":");
+  private static final byte[] SHORT_MESSAGE = bytes(",\"short_message\":");
+  private static final byte[] FULL_MESSAGE = bytes(",\"full_message\":");
+  private static final byte[] TIMESTAMP = bytes(",\"timestamp\":");
+  private static final byte[] LEVEL = bytes(",\"level\":");
+  private static final byte[] LOG_ID = bytes(",\"_log_id\":");
+  private static final byte[] LOG_NAME = bytes(",\"_log_name\":");
+  private static final byte[] LOG_LEVEL = bytes(",\"_log_level\":");
+  private static final byte[] LOG_LEVEL_ORDINAL = bytes(",\"_log_level_ordinal\":");
+  private static final byte[] LOG_THREAD = bytes(",\"_log_thread\":");
+  private static final byte[] LOG_CLASS = bytes(",\"_log_class\":");
+  private static final byte[] LOG_METHOD = bytes(",\"_log_method\":");
+  private static final byte[] LOG_FILE = bytes(",\"_log_file\":");
+  private static final byte[] LOG_LINE = bytes(",\"_log_line\":");
+  private static final byte[] TRACE_OFFSET = bytes(",\"_trace_offset\":");
+  private static final byte[] LINE_SEPARATOR = bytes(System.lineSeparator());
+
+  private static final byte[] HEX_DIGITS = bytes("0123456789abcdef");
+
+  private final BiConsumer<String, Object> fieldWriter;
+  /** Scratch space for number digits, large enough for any long value. */
+  private final byte[] digits;
+
+  private ByteBuffer buffer;
+
+  public GelfEncoder()
+  {
+    this.fieldWriter = this::writeField;
+    this.digits = new byte[20];
+    this.buffer = ByteBuffer.allocate(DEF_CAPACITY);
+  }
+
+  /**
+   * Get encoder buffer with bytes from start to current position being encoded records. Returned buffer is valid till
+   * next encoder operation since buffer instance can be replaced while growing.
+   *
+   * @return encoder buffer.
+   */
+  public ByteBuffer buffer()
+  {
+    return buffer;
+  }
+
+  /**
+   * Get the number of bytes encoded since last reset.
+   *
+   * @return encoded bytes count.
+   */
+  public int size()
+  {
+    return buffer.position();
+  }
+
+  /**
+   * Discard bytes encoded after given size, e.g. a record partially encoded when encoding failed.
+   *
+   * @param size encoded bytes count to keep.
+   */
+  public void rewind(int size)
+  {
+    buffer.position(size);
+  }
+
+  /** Discard encoded bytes, preparing encoder for a new batch. */
+  public void reset()
+  {
+    if(buffer.capacity() > MAX_RETAINED_CAPACITY) {
+      buffer = ByteBuffer.allocate(DEF_CAPACITY);
+    }
+    else {
+      buffer.clear();
+    }
+  }
+
+  /**
+   * Append GELF record encoded as JSON object. Line separator is not included; use {@link #encodeLineSeparator()}.
+   *
+   * @param record GELF record to encode.
+   */
+  public void encode(GelfRecord record)
+  {
+    writeBytes(VERSION);
+    writeString(record.getVersion());
+
+    if(record.getHost() != null) {
+      writeBytes(HOST);
+      writeString(record.getHost());
+    }
+    if(record.getShortMessage() != null) {
+      writeBytes(SHORT_MESSAGE);
+      writeString(record.getShortMessage());
+    }
+    if(record.getFullMessage() != null) {
+      writeBytes(FULL_MESSAGE);
+      writeString(record.getFullMessage());
+    }
+
+    writeBytes(TIMESTAMP);
+    writeDouble(record.getTimestamp());
+    writeBytes(LEVEL);
+    writeLong(record.getLevel());
+
+    if(record.getLogId() != 0) {
+      writeBytes(LOG_ID);
+      writeLong(record.getLogId());
+    }
+    writeField(LOG_NAME, record.getLoggerName());
+    if(record.getLogLevel() != null) {
+      writeBytes(LOG_LEVEL);
+      writeString(record.getLogLevel().name());
+      writeBytes(LOG_LEVEL_ORDINAL);
+      writeLong(record.getLogLevel().ordinal());
+    }
+    writeField(LOG_THREAD, record.getThreadName());
+    writeField(LOG_CLASS, record.getLogClass());
+    writeField(LOG_METHOD, record.getLogMethod());
+    writeField(LOG_FILE, record.getLogFile());
+    if(record.getLogLine() >= 0) {
+      writeBytes(LOG_LINE);
+      writeLong(record.getLogLine());
+    }
+
+    LogContextSnapshot context = record.getContext();
+    if(context != null) {
+      writeContext(context);
+    }
+    record.forEachField(fieldWriter);
+
+    if(!Double.isNaN(record.getTraceOffset())) {
+      writeBytes(TRACE_OFFSET);
+      writeDouble(record.getTraceOffset());
+    }
+
+    ensureCapacity(1);
+    buffer.put((byte)'}');
+  }
+
+  public void encodeLineSeparator()
+  {
+    writeBytes(LINE_SEPARATOR);
+  }
+
+  /**
+   * Write log context values as custom fields. Encoded fields fragment is cached on context snapshot and reused by
+   * next records sharing the same snapshot.
+   * 
+   * @param context log context snapshot.
+   */
+  private void writeContext(LogContextSnapshot context)
+  {
+    byte[] encoded = context.getEncoded();
+    if(encoded != null) {
+      writeBytes(encoded);
+      return;
+    }
+
+    int start = buffer.position();
+    context.forEach(fieldWriter);
+    encoded = new byte[buffer.position() - start];
+    System.arraycopy(buffer.array(), buffer.arrayOffset() + start, encoded, 0, encoded.length);
+    context.setEncoded(encoded);
+  }
+
+  /**
+   * Write standard string field with pre-encoded key, if value is not null.
+   * 
+   * @param key field key, including leading comma and trailing colon,
+   * @param value field value, possible null.
+   */
+  private void writeField(byte[] key, String value)
+  {
+    if(value != null) {
+      writeBytes(key);
+      writeString(value);
+    }
+  }
+
+  /**
+   * Write custom field. Field name is prefixed with underscore, as required by GELF specification. Null values and
+   * fields with standard names, e.g. a context value named <code>log_name</code>, are not written at all.
+   *
+   * @param name field name, without underscore prefix,
+   * @param value field value, possible null.
+   */
+  private void writeField(String name, Object value)
+  {
+    if(value == null || GelfRecord.isStandardField(name)) {
+      return;
+    }
+
+    ensureCapacity(3);
+    buffer.put((byte)',');
+    buffer.put((byte)'"');
+    buffer.put((byte)'_');
+    writeChars(name);
+    ensureCapacity(2);
+    buffer.put((byte)'"');
+    buffer.put((byte)':');
+
+    if(value instanceof String) {
+      writeString((String)value);
+    }
+    else if(value instanceof Double) {
+      writeDouble((Double)value);
+    }
+    else if(value instanceof Integer) {
+      writeLong((Integer)value);
+    }
+    else if(value instanceof Long) {
+      writeLong((Long)value);
+    }
+    else {
+      writeString(value.toString());
+    }
+  }
+
+  private void writeString(String value)
+  {
+    ensureCapacity(1);
+    buffer.put((byte)'"');
+    writeChars(value);
+    ensureCapacity(1);
+    buffer.put((byte)'"');
+  }
+
+  /**
+   * Write string characters UTF-8 encoded and escaped for JSON string. Buffer is grown once for the worst case of
+   * common characters, that is, 3 bytes per character, and this room is kept for not yet written characters. Only
+   * unicode escape sequence, that is rare, takes more than 3 bytes and needs capacity check for its own bytes and for
+   * remaining characters.
+   *
+   * @param value string value.
+   */
+  private void writeChars(String value)
+  {
+    int length = value.length();
+    ensureCapacity(length * 3);
+
+    for(int i = 0; i < length; ++i) {
+      char c = value.charAt(i);
+
+      // fast path for ASCII characters not needing escape
+      if(c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+        buffer.put((byte)c);
+        continue;
+      }
+
+      switch(c) {
+      case '\\':
+      case '"':
+        ensureCapacity(2);
+        buffer.put((byte)'\\');
+        buffer.put((byte)c);
+        break;
+
+      case '\b':
+        writeEscape('b');
+        break;
+
+      case '\t':
+        writeEscape('t');
+        break;
+
+      case '\n':
+        writeEscape('n');
+        break;
+
+      case '\f':
+        writeEscape('f');
+        break;
+
+      case '\r':
+        writeEscape('r');
+        break;
+
+      default:
+        if(c < 0x20) {
+          ensureCapacity(6 + 3 * (length - i - 1));
+          buffer.put((byte)'\\');
+          buffer.put((byte)'u');
+          buffer.put((byte)'0');
+          buffer.put((byte)'0');
+          buffer.put(HEX_DIGITS[c >> 4]);
+          buffer.put(HEX_DIGITS[c & 0xF]);
+        }
+        else if(c < 0x800) {
+          buffer.put((byte)(0xC0 | (c >> 6)));
+          buffer.put((byte)(0x80 | (c & 0x3F)));
+        }
+        else if(Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+          int codePoint = Character.toCodePoint(c, value.charAt(++i));
+          buffer.put((byte)(0xF0 | (codePoint >> 18)));
+          buffer.put((byte)(0x80 | ((codePoint >> 12) & 0x3F)));
+          buffer.put((byte)(0x80 | ((codePoint >> 6) & 0x3F)));
+          buffer.put((byte)(0x80 | (codePoint & 0x3F)));
+        }
+        else if(Character.isSurrogate(c)) {
+          // malformed surrogate pair is replaced with question mark, the same as standard UTF-8 encoder
+          buffer.put((byte)'?');
+        }
+        else {
+          buffer.put((byte)(0xE0 | (c >> 12)));
+          buffer.put((byte)(0x80 | ((c >> 6) & 0x3F)));
+          buffer.put((byte)(0x80 | (c & 0x3F)));
+        }
+      }
+    }
+  }
+
+  private void writeEscape(char c)
+  {
+    ensureCapacity(2);
+    buffer.put((byte)'\\');
+    buffer.put((byte)c);
+  }
+
+  private void writeLong(long value)
+  {
+    if(value == Long.MIN_VALUE) {
+      writeBytes(bytes(Long.toString(value)));
+      return;
+    }
+
+    ensureCapacity(digits.length + 1);
+    if(value < 0) {
+      buffer.put((byte)'-');
+      value = -value;
+    }
+    int index = digits.length;
+    do {
+      digits[--index] = (byte)('0' + value % 10);
+      value /= 10;
+    } while(value != 0);
+    buffer.put(digits, index, digits.length - index);
+  }
+
+  /**
+   * Write floating point number with fixed 6 decimals, the same as <code>%.6f</code> format but without formatter
+   * overhead. Values too large for fast path and non finite values are delegated to standard formatter.
+   *
+   * @param value floating point value.
+   */
+  private void writeDouble(double value)
+  {
+    if(Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= MAX_FAST_DOUBLE) {
+      writeBytes(bytes(String.format(Locale.ENGLISH, "%.6f", value)));
+      return;
+    }
+
+    long scaled = Math.round(Math.abs(value) * DECIMALS_SCALE);
+    ensureCapacity(digits.length + 2);
+    if(value < 0 || (value == 0 && 1 / value < 0)) {
+      buffer.put((byte)'-');
+    }
+    writeLong(scaled / DECIMALS_SCALE);
+
+    long decimals = scaled % DECIMALS_SCALE;
+    ensureCapacity(DECIMALS_COUNT + 1);
+    buffer.put((byte)'.');
+    for(int i = DECIMALS_COUNT - 1; i >= 0; --i) {
+      digits[i] = (byte)('0' + decimals % 10);
+      decimals /= 10;
+    }
+    buffer.put(digits, 0, DECIMALS_COUNT);
+  }
+
+  private void writeBytes(byte[] bytes)
+  {
+    ensureCapacity(bytes.length);
+    buffer.put(bytes);
+  }
+
+  private void ensureCapacity(int bytesCount)
+  {
+    if(buffer.remaining() >= bytesCount) {
+      return;
+    }
+    int capacity = Math.max(buffer.capacity() * 2, buffer.position() + bytesCount);
+    ByteBuffer newBuffer = ByteBuffer.allocate(capacity);
+    buffer.flip();
+    newBuffer.put(buffer);
+    buffer = newBuffer;
+  }
+
+  private static byte[] bytes(String string)
+  {
+    return string.getBytes(StandardCharsets.UTF_8);
+  }
+}
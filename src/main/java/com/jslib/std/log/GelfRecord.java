@@ -1,19 +1,35 @@
 package com.jslib.std.log;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.io.PrintStream;
-import java.io.UnsupportedEncodingException;
-import java.util.LinkedHashMap;
-import java.util.Locale;
-
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+import com.jslib.api.log.Level;
+
+/**
+ * GELF record with standard log fields stored on typed slots. Well known fields - log identifier, level, logger name,
+ * thread, caller location and trace offset - are set on every record and are kept as primitives or final types, with no
+ * hashing and boxing. Only user fields, that is, context values and message parameters, are stored as names / values
+ * pairs into a compact array that preserves insertion order.
+ * <p>
+ * Standard fields names are reserved: a user field or context value with the name of a standard field is not encoded,
+ * so that encoded JSON has no duplicated keys.
+ */
 class GelfRecord
 {
   private static final String DEF_VERSION = "1.1";
+  /** Initial capacity for user fields, in names / values pairs. */
+  private static final int DEF_FIELDS_CAPACITY = 8;
+  /** Estimated encoded size of standard fields, used by {@link #estimateSize()}. */
+  private static final int ESTIMATED_OVERHEAD = 256;
+  /** Estimated encoded size of a non string value. */
+  private static final int ESTIMATED_VALUE_SIZE = 16;
+  /** Names, without underscore prefix, of standard fields stored on typed slots. */
+  private static final Set<String> STANDARD_FIELDS = new HashSet<>(Arrays.asList("log_id", "log_name", "log_level", "log_level_ordinal", "log_thread", "log_class", "log_method", "log_file", "log_line", "trace_offset"));
 
   private final String message;
   private final Object[] arguments;
-  private final long baseTimestamp;
 
   private String version;
   private String host;
@@ -22,21 +38,48 @@ class GelfRecord
   private double timestamp;
   private int level;
 
-  private final LinkedHashMap<String, Object> fields;
+  private long logId;
+  private Level logLevel;
+  private String loggerName;
+  private String threadName;
+  private String logClass;
+  private String logMethod;
+  private String logFile;
+  /** Caller source line or -1 if not known. */
+  private int logLine;
+  /** Microseconds since trace start or NaN if there is no trace timestamp on log context. */
+  private double traceOffset;
+
+  /** Log context snapshot shared with other records, possible null. Context values take precedence over user fields. */
+  private LogContextSnapshot context;
+  /** User fields stored as names / values pairs: field name on even index followed by its value. */
+  private Object[] fields;
+  private int fieldsCount;
 
   public GelfRecord(String message, Object... arguments)
+  {
+    this(System.currentTimeMillis() * 1000, message, arguments);
+  }
+
+  /**
+   * Create GELF record for message and its arguments. Timestamp is in microseconds in order to support high precision
+   * clock; if clock precision is milliseconds timestamp is a multiple of 1000.
+   * 
+   * @param timestampMicros record timestamp, in microseconds since epoch,
+   * @param message log message, possible with parameters,
+   * @param arguments message arguments.
+   */
+  public GelfRecord(long timestampMicros, String message, Object... arguments)
   {
     this.message = message;
     this.arguments = arguments;
 
     this.version = DEF_VERSION;
     this.level = SyslogLevel.ALERT.ordinal();
+    this.timestamp = timestampMicros / 1000000D;
 
-    long timestamp = System.currentTimeMillis();
-    this.timestamp = timestamp / 1000D;
-    this.baseTimestamp = timestamp / 1000;
-
-    this.fields = new LinkedHashMap<>();
+    this.logLine = -1;
+    this.traceOffset = Double.NaN;
   }
 
   public String getMessage()
@@ -99,11 +142,6 @@ class GelfRecord
     return timestamp;
   }
 
-  public long getBaseTimestamp()
-  {
-    return baseTimestamp;
-  }
-
   public void setLevel(SyslogLevel level)
   {
     this.level = level.ordinal();
@@ -114,149 +152,215 @@ class GelfRecord
     return level;
   }
 
-  public void setField(String name, Object value)
+  public void setLogId(long logId)
   {
-    fields.put(name, value);
+    this.logId = logId;
   }
 
-  public Object getField(String name)
+  public long getLogId()
   {
-    return fields.get(name);
+    return logId;
   }
 
-  public boolean hasField(String name)
+  public void setLogLevel(Level logLevel)
   {
-    return fields.containsKey(name);
+    this.logLevel = logLevel;
   }
 
-  public void save(PrintStream printer)
+  public Level getLogLevel()
   {
-    printer.print('{');
+    return logLevel;
+  }
 
-    print(printer, "version", version);
-    printer.print(',');
+  public void setLoggerName(String loggerName)
+  {
+    this.loggerName = loggerName;
+  }
 
-    if(host != null) {
-      print(printer, "host", host);
-      printer.print(',');
-    }
+  public String getLoggerName()
+  {
+    return loggerName;
+  }
+
+  public void setThreadName(String threadName)
+  {
+    this.threadName = threadName;
+  }
 
-    print(printer, "short_message", shortMessage);
-    printer.print(',');
+  public String getThreadName()
+  {
+    return threadName;
+  }
 
-    if(fullMessage != null) {
-      print(printer, "full_message", fullMessage);
-      printer.print(',');
-    }
+  public void setLocation(String logClass, String logMethod)
+  {
+    this.logClass = logClass;
+    this.logMethod = logMethod;
+  }
+
+  public void setSource(String logFile, int logLine)
+  {
+    this.logFile = logFile;
+    this.logLine = logLine;
+  }
 
-    print(printer, "timestamp", timestamp);
-    printer.print(',');
-    print(printer, "level", level);
+  public String getLogClass()
+  {
+    return logClass;
+  }
 
-    for(String name : fields.keySet()) {
-      printer.print(',');
-      print(printer, '_' + name, fields.get(name));
-    }
+  public String getLogMethod()
+  {
+    return logMethod;
+  }
 
-    printer.print('}');
-    printer.println();
-    printer.flush();
+  public String getLogFile()
+  {
+    return logFile;
   }
 
-  private void print(PrintStream printer, String field, Object value)
+  public int getLogLine()
   {
-    if(value == null) {
-      return;
-    }
+    return logLine;
+  }
 
-    printer.print('"');
-    printer.print(field);
-    printer.print('"');
+  public void setTraceOffset(double traceOffset)
+  {
+    this.traceOffset = traceOffset;
+  }
+
+  public double getTraceOffset()
+  {
+    return traceOffset;
+  }
+
+  /**
+   * Set log context snapshot shared with other records. Context values are encoded as custom fields and take precedence
+   * over user fields with the same name.
+   * 
+   * @param context log context snapshot, possible null.
+   */
+  public void setContext(LogContextSnapshot context)
+  {
+    this.context = context;
+  }
 
-    printer.print(':');
+  public LogContextSnapshot getContext()
+  {
+    return context;
+  }
 
-    if(value instanceof String) {
-      print(printer, (String)value);
+  /**
+   * Set user field, replacing existing value. Field is ignored if its name is reserved for a standard field or if log
+   * context has a value with the same name.
+   * 
+   * @param name field name, without underscore prefix,
+   * @param value field value.
+   */
+  public void setField(String name, Object value)
+  {
+    if(STANDARD_FIELDS.contains(name) || (context != null && context.has(name))) {
+      return;
     }
-    else if(value instanceof Double) {
-      printer.print(String.format(Locale.ENGLISH, "%.6f", value));
+    int index = fieldIndex(name);
+    if(index >= 0) {
+      fields[index + 1] = value;
+      return;
+    }
+
+    if(fields == null) {
+      fields = new Object[2 * DEF_FIELDS_CAPACITY];
     }
-    else if(value instanceof Integer) {
-      printer.print(Integer.toString((int)value));
+    else if(fieldsCount == fields.length) {
+      fields = Arrays.copyOf(fields, 2 * fields.length);
     }
-    else if(value instanceof Long) {
-      printer.print(Long.toString((long)value));
+    fields[fieldsCount++] = name;
+    fields[fieldsCount++] = value;
+  }
+
+  public Object getField(String name)
+  {
+    if(context != null && context.has(name)) {
+      return context.get(name);
     }
-    else {
-      print(printer, value.toString());
+    int index = fieldIndex(name);
+    return index >= 0 ? fields[index + 1] : null;
+  }
+
+  /**
+   * Test if record has a field with given name, as user field or log context value. Always returns true for standard
+   * fields names since they are reserved.
+   * 
+   * @param name field name, without underscore prefix.
+   * @return true if field is present or name is reserved.
+   */
+  public boolean hasField(String name)
+  {
+    return STANDARD_FIELDS.contains(name) || (context != null && context.has(name)) || fieldIndex(name) >= 0;
+  }
+
+  /**
+   * Iterate user fields in insertion order, log context values not included. Field names are without underscore prefix.
+   * 
+   * @param consumer fields consumer.
+   */
+  public void forEachField(BiConsumer<String, Object> consumer)
+  {
+    for(int i = 0; i < fieldsCount; i += 2) {
+      consumer.accept((String)fields[i], fields[i + 1]);
     }
   }
 
-  private void print(PrintStream printer, String string)
-  {
-    printer.print('"');
-
-    for(int i = 0; i < string.length(); i++) {
-      char c = string.charAt(i);
-      switch(c) {
-      case '\\':
-      case '"':
-        printer.print('\\');
-        printer.print(c);
-        break;
-
-      case '/':
-        printer.print(c);
-        break;
-
-      case '\b':
-        printer.print("\\b");
-        break;
-
-      case '\t':
-        printer.print("\\t");
-        break;
-
-      case '\n':
-        printer.print("\\n");
-        break;
-
-      case '\f':
-        printer.print("\\f");
-        break;
-
-      case '\r':
-        printer.print("\\r");
-        break;
-
-      default:
-        if(c < '\u0020') {
-          String unicode = "000" + Integer.toHexString(c);
-          printer.print("\\u");
-          printer.print(unicode.substring(unicode.length() - 4));
-        }
-        else {
-          printer.print(c);
-        }
+  /**
+   * Estimate encoded record size without encoding it, used to bound buffered records. Estimate counts message template,
+   * string arguments and user fields; other values are counted with a fixed size. Standard fields are covered by a
+   * fixed overhead.
+   * 
+   * @return estimated encoded size, in bytes.
+   */
+  public int estimateSize()
+  {
+    int size = ESTIMATED_OVERHEAD + length(message) + length(loggerName) + length(threadName);
+    if(arguments != null) {
+      for(Object argument : arguments) {
+        size += length(argument);
       }
     }
+    for(int i = 0; i < fieldsCount; i += 2) {
+      size += 6 + length(fields[i]) + length(fields[i + 1]);
+    }
+    return size;
+  }
 
-    printer.print('"');
+  private static int length(Object value)
+  {
+    return value instanceof String ? ((String)value).length() : ESTIMATED_VALUE_SIZE;
   }
 
-  public byte[] getBytes()
+  /**
+   * Test if field name is reserved for a standard field stored on a typed slot.
+   * 
+   * @param name field name, without underscore prefix.
+   * @return true if name is a standard field name.
+   */
+  public static boolean isStandardField(String name)
   {
-    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
-    try {
-      save(new PrintStream(bytes, false, "UTF-8"));
-    }
-    catch(UnsupportedEncodingException ignored) {}
-    finally {
-      try {
-        bytes.close();
+    return STANDARD_FIELDS.contains(name);
+  }
+
+  /**
+   * Linear search for user field, that is faster than hashing for the usual small number of fields.
+   * 
+   * @param name field name.
+   * @return index of field name in fields array or -1 if not found.
+   */
+  private int fieldIndex(String name)
+  {
+    for(int i = 0; i < fieldsCount; i += 2) {
+      if(name.equals(fields[i])) {
+        return i;
       }
-      catch(IOException e) {}
     }
-    return bytes.toByteArray();
+    return -1;
   }
 }
@@ -0,0 +1,27 @@
+package com.jslib.std.log;
+
+/** Sink sending encoded records to GELF server, using UDP or TCP transport. */
+class GelfSink extends Sink
+{
+  private final GelfTransport transport;
+  private final PrinterStatistics statistics;
+
+  public GelfSink(GelfTransport transport, PrinterStatistics statistics, int queueCapacity)
+  {
+    super("gelf", queueCapacity);
+    this.transport = transport;
+    this.statistics = statistics;
+  }
+
+  @Override
+  protected void write(EncodedBatch batch)
+  {
+    transport.send(batch.bytes(), batch.starts(), batch.ends(), batch.count(), statistics);
+  }
+
+  @Override
+  protected void closeSink()
+  {
+    transport.close();
+  }
+}
@@ -0,0 +1,243 @@
+package com.jslib.std.log;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GELF TCP transport on non-blocking socket channel. Records are framed with null byte, as required by GELF TCP, and
+ * records from a batch are coalesced into a pending bytes buffer written with as few socket writes as possible.
+ * <p>
+ * Pending buffer is bounded. When there is no room for a record, sender waits for the socket to become writable, but
+ * not longer than write timeout for the whole batch; while sender waits, batches accumulate on sink queue. If still no
+ * room after write timeout, record is dropped and counted as send failure, and the rest of the batch is written only as
+ * far as there is room, without waiting, so that a stalled collector delays a batch by at most write timeout.
+ * <p>
+ * Connection is opened lazily and, on failure, reopened with exponential backoff. Collector host name is resolved on
+ * every connect, so that a failed lookup is retried and DNS changes are picked up on reconnect. Records written while
+ * disconnected are kept on pending buffer, up to its capacity, and sent after reconnect. If connection breaks in the
+ * middle of a record, the remaining record bytes are discarded so that next connection starts on a frame boundary.
+ */
+class GelfTcpSender implements GelfTransport
+{
+  private static final long MIN_BACKOFF = TimeUnit.MILLISECONDS.toNanos(100);
+  private static final long MAX_BACKOFF = TimeUnit.SECONDS.toNanos(30);
+
+  private final String host;
+  private final int port;
+  private final long writeTimeout;
+  private final Selector selector;
+  /** Encoded records waiting to be written, in fill mode, that is, position is the end of pending bytes. */
+  private final ByteBuffer pending;
+
+  /** True if first pending record was partially written, that is, pending buffer does not start on frame boundary. */
+  private boolean partialRecord;
+
+  /** Collector address resolved by last connect. */
+  private InetSocketAddress address;
+  private SocketChannel channel;
+  private boolean connected;
+  private long backoff;
+  /** System nano time before which connection is not retried. */
+  private long nextConnectTime;
+
+  /**
+   * Create TCP sender. Connection is not opened by constructor.
+   *
+   * @param address collector socket address; only host name and port are used, address is resolved on connect,
+   * @param pendingSize maximum number of pending bytes,
+   * @param writeTimeoutMillis maximum time, in milliseconds, to wait for room on pending buffer.
+   * @throws IOException if selector cannot be opened.
+   */
+  public GelfTcpSender(InetSocketAddress address, int pendingSize, int writeTimeoutMillis) throws IOException
+  {
+    this.host = address.getHostString();
+    this.port = address.getPort();
+    this.address = address;
+    this.writeTimeout = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+    this.selector = Selector.open();
+    this.pending = ByteBuffer.allocateDirect(pendingSize);
+    this.backoff = MIN_BACKOFF;
+    this.nextConnectTime = System.nanoTime();
+  }
+
+  @Override
+  public void send(byte[] bytes, int[] starts, int[] ends, int count, PrinterStatistics statistics)
+  {
+    // write timeout is for the whole batch; after deadline, records not fitting pending buffer are dropped without wait
+    long deadline = System.nanoTime() + writeTimeout;
+    for(int i = 0; i < count; ++i) {
+      int length = ends[i] - starts[i];
+      if(length + 1 > pending.capacity()) {
+        statistics.onSendFailure();
+        continue;
+      }
+      if(length + 1 > pending.remaining()) {
+        flushUntil(deadline);
+        if(length + 1 > pending.remaining()) {
+          statistics.onSendFailure();
+          continue;
+        }
+      }
+      pending.put(bytes, starts[i], length);
+      pending.put((byte)0);
+    }
+
+    // write coalesced records without waiting; what is left is written on next batch
+    flush(0);
+  }
+
+  /**
+   * Write pending bytes, connecting first if needed, waiting for socket readiness up to given timeout. Returns when
+   * pending buffer is empty, timeout expires or connection is not available due to reconnect backoff.
+   *
+   * @param timeout timeout, in nanoseconds, zero for no wait.
+   */
+  void flush(long timeout)
+  {
+    flushUntil(System.nanoTime() + timeout);
+  }
+
+  /**
+   * Write pending bytes, waiting for socket readiness up to given deadline. If deadline already passed, write without
+   * waiting.
+   *
+   * @param deadline system nano time after which sender does not wait anymore.
+   */
+  private void flushUntil(long deadline)
+  {
+    while(pending.position() > 0) {
+      try {
+        if(channel == null && !connect()) {
+          return;
+        }
+        if(!connected && channel.finishConnect()) {
+          onConnect();
+        }
+        if(connected && write()) {
+          return;
+        }
+
+        long remaining = deadline - System.nanoTime();
+        if(remaining <= 0) {
+          return;
+        }
+        SelectionKey key = channel.keyFor(selector);
+        key.interestOps(connected ? SelectionKey.OP_WRITE : SelectionKey.OP_CONNECT);
+        selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+        selector.selectedKeys().clear();
+      }
+      catch(IOException e) {
+        disconnect(e);
+      }
+    }
+  }
+
+  /**
+   * Start non-blocking connection if reconnect backoff elapsed. Collector address is resolved again on every call.
+   *
+   * @return true if connection is started or established.
+   * @throws IOException if collector host cannot be resolved or connection fails.
+   */
+  private boolean connect() throws IOException
+  {
+    if(System.nanoTime() - nextConnectTime < 0) {
+      return false;
+    }
+    address = new InetSocketAddress(host, port);
+    if(address.isUnresolved()) {
+      // channel connect throws unchecked exception for unresolved address; report it as connection failure
+      throw new UnknownHostException(host);
+    }
+    channel = SocketChannel.open();
+    channel.configureBlocking(false);
+    channel.register(selector, SelectionKey.OP_CONNECT);
+    if(channel.connect(address)) {
+      onConnect();
+    }
+    return true;
+  }
+
+  private void onConnect()
+  {
+    connected = true;
+    backoff = MIN_BACKOFF;
+  }
+
+  /**
+   * Write pending bytes without blocking.
+   *
+   * @return true if all pending bytes were written.
+   * @throws IOException if write fails.
+   */
+  private boolean write() throws IOException
+  {
+    pending.flip();
+    try {
+      if(channel.write(pending) > 0) {
+        partialRecord = pending.get(pending.position() - 1) != 0;
+      }
+    }
+    finally {
+      pending.compact();
+    }
+    return pending.position() == 0;
+  }
+
+  private void disconnect(IOException cause)
+  {
+    // report only first failure from a reconnect series
+    if(connected || backoff == MIN_BACKOFF) {
+      System.err.printf("GELF TCP connection to %s failed. Root cause: %s: %s%n", address, cause.getClass().getCanonicalName(), cause.getMessage());
+    }
+    close(channel);
+    channel = null;
+    connected = false;
+
+    nextConnectTime = System.nanoTime() + backoff;
+    backoff = Math.min(MAX_BACKOFF, 2 * backoff);
+    discardPartialRecord();
+  }
+
+  /** If first pending record was partially written, discard its remaining bytes, including null terminator. */
+  private void discardPartialRecord()
+  {
+    if(partialRecord) {
+      int position = pending.position();
+      int end = 0;
+      while(end < position && pending.get(end) != 0) {
+        ++end;
+      }
+      pending.flip();
+      pending.position(Math.min(end + 1, position));
+      pending.compact();
+      partialRecord = false;
+    }
+  }
+
+  @Override
+  public void close()
+  {
+    flush(writeTimeout);
+    close(channel);
+    try {
+      selector.close();
+    }
+    catch(IOException ignore) {}
+  }
+
+  private static void close(SocketChannel channel)
+  {
+    if(channel != null) {
+      try {
+        channel.close();
+      }
+      catch(IOException ignore) {}
+    }
+  }
+}
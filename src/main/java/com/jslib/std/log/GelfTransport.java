@@ -0,0 +1,22 @@
+package com.jslib.std.log;
+
+/**
+ * Transport for GELF records encoded by sender thread. Transport is owned by GELF sink worker thread, that sends
+ * batches shared by sender thread, and is not required to be thread safe. Transport does not throw exceptions; sending
+ * failures are recorded on printer statistics.
+ */
+interface GelfTransport
+{
+  /**
+   * Send a batch of encoded records. Records are stored into the same bytes array, at given offsets.
+   * 
+   * @param bytes bytes array containing encoded records,
+   * @param starts records start offsets,
+   * @param ends records end offsets, exclusive,
+   * @param count number of records in batch,
+   * @param statistics printer statistics updated with sending outcome.
+   */
+  void send(byte[] bytes, int[] starts, int[] ends, int count, PrinterStatistics statistics);
+
+  void close();
+}
@@ -0,0 +1,230 @@
+package com.jslib.std.log;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * GELF UDP sender with optional payload compression and chunking. Payload larger than compression threshold is
+ * compressed with configured compression; if resulting payload is still larger than maximum datagram size it is split
+ * into GELF chunks. A chunk has 12 bytes header: magic bytes <code>0x1e 0x0f</code>, 8 bytes message ID, 1 byte
+ * sequence number and 1 byte sequence count, followed by payload fragment. GELF limits the number of chunks to 128; a
+ * larger payload is rejected.
+ * <p>
+ * Datagrams are sent on a connected datagram channel from a reusable direct buffer: payload, or chunk header and
+ * fragment, is copied once into the direct buffer and written from there, so no datagram packet and no temporary native
+ * buffer is allocated per send. Connected channel also skips per datagram security and address checks.
+ * <p>
+ * Sender is owned by sink worker thread and is not thread safe. Deflater and buffers are reused.
+ */
+class GelfUdpSender implements GelfTransport
+{
+  private static final byte[] CHUNK_MAGIC = new byte[] {
+      0x1e, 0x0f
+  };
+  private static final int CHUNK_HEADER_SIZE = 12;
+  private static final int MAX_CHUNKS = 128;
+
+  /** GZIP header for deflate compression method, no flags, no modification time and unknown OS. */
+  private static final byte[] GZIP_HEADER = new byte[] {
+      0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte)0xff
+  };
+  private static final int GZIP_TRAILER_SIZE = 8;
+
+  private final DatagramChannel channel;
+  private final GelfCompression compression;
+  private final int compressionThreshold;
+  /** Maximum datagram size, chunk header included. */
+  private final int datagramSize;
+
+  private final Deflater deflater;
+  private final CRC32 crc;
+  private byte[] compressed;
+  /** Reusable direct buffer holding the datagram being sent, chunk header included. */
+  private final ByteBuffer datagram;
+
+  /** Next chunked message ID; initialized randomly so that IDs from different processes does not collide. */
+  private long messageId;
+  /** False after a batch with send failures, till a batch is sent with no failure. */
+  private boolean healthy;
+
+  public GelfUdpSender(InetAddress address, int port, GelfCompression compression, int compressionThreshold, int datagramSize) throws IOException
+  {
+    this.channel = DatagramChannel.open();
+    this.channel.connect(new InetSocketAddress(address, port));
+    this.compression = compression;
+    this.compressionThreshold = compressionThreshold;
+    this.datagramSize = Math.max(CHUNK_HEADER_SIZE + 1, datagramSize);
+
+    // GZIP header and trailer are written by this sender, deflater produces raw deflate stream
+    this.deflater = compression != GelfCompression.NONE ? new Deflater(Deflater.DEFAULT_COMPRESSION, compression == GelfCompression.GZIP) : null;
+    this.crc = new CRC32();
+    this.compressed = new byte[this.datagramSize];
+    this.datagram = ByteBuffer.allocateDirect(this.datagramSize);
+
+    this.messageId = new Random().nextLong();
+    this.healthy = true;
+  }
+
+  @Override
+  public void send(byte[] bytes, int[] starts, int[] ends, int count, PrinterStatistics statistics)
+  {
+    IOException failure = null;
+    for(int i = 0; i < count; ++i) {
+      try {
+        statistics.onSentDatagrams(send(bytes, starts[i], ends[i] - starts[i]));
+      }
+      catch(IOException e) {
+        statistics.onSendFailure();
+        if(failure == null) {
+          failure = e;
+        }
+      }
+    }
+
+    if(failure == null) {
+      healthy = true;
+      return;
+    }
+    if(healthy) {
+      // report only first failure from a failures series, e.g. while collector is down; all failures are counted
+      System.err.printf("Fail to send GELF record. Root cause: %s: %s%n", failure.getClass().getCanonicalName(), failure.getMessage());
+    }
+    healthy = false;
+  }
+
+  /**
+   * Send GELF payload, compressed and chunked as needed.
+   *
+   * @param bytes bytes array containing GELF payload,
+   * @param offset payload offset,
+   * @param length payload length.
+   * @return number of datagrams sent.
+   * @throws IOException if payload requires more than 128 chunks or datagram sending fails.
+   */
+  public int send(byte[] bytes, int offset, int length) throws IOException
+  {
+    if(compression != GelfCompression.NONE && length >= compressionThreshold) {
+      length = compress(bytes, offset, length);
+      bytes = compressed;
+      offset = 0;
+    }
+
+    if(length <= datagramSize) {
+      datagram.clear();
+      datagram.put(bytes, offset, length);
+      write();
+      return 1;
+    }
+
+    int fragmentSize = datagramSize - CHUNK_HEADER_SIZE;
+    int chunksCount = (length + fragmentSize - 1) / fragmentSize;
+    if(chunksCount > MAX_CHUNKS) {
+      throw new IOException(String.format("GELF payload too large: %d bytes require %d chunks.", length, chunksCount));
+    }
+
+    long id = messageId++;
+    for(int sequence = 0; sequence < chunksCount; ++sequence) {
+      int fragmentOffset = sequence * fragmentSize;
+      int fragmentLength = Math.min(fragmentSize, length - fragmentOffset);
+      datagram.clear();
+      datagram.put(CHUNK_MAGIC);
+      datagram.putLong(id);
+      datagram.put((byte)sequence);
+      datagram.put((byte)chunksCount);
+      datagram.put(bytes, offset + fragmentOffset, fragmentLength);
+      write();
+    }
+    return chunksCount;
+  }
+
+  /**
+   * Write datagram buffer content, in fill mode, as a single datagram.
+   *
+   * @throws IOException if datagram sending fails, including ICMP port unreachable reported on connected channel.
+   */
+  private void write() throws IOException
+  {
+    datagram.flip();
+    if(channel.write(datagram) == 0) {
+      throw new IOException("GELF datagram not sent: no room on socket send buffer.");
+    }
+  }
+
+  /**
+   * Compress payload into reusable compressed buffer, growing it as needed.
+   *
+   * @param bytes bytes array containing GELF payload,
+   * @param offset payload offset,
+   * @param length payload length.
+   * @return compressed length.
+   */
+  private int compress(byte[] bytes, int offset, int length)
+  {
+    int position = 0;
+    if(compression == GelfCompression.GZIP) {
+      ensureCompressedCapacity(GZIP_HEADER.length);
+      System.arraycopy(GZIP_HEADER, 0, compressed, 0, GZIP_HEADER.length);
+      position = GZIP_HEADER.length;
+    }
+
+    deflater.reset();
+    deflater.setInput(bytes, offset, length);
+    deflater.finish();
+    while(!deflater.finished()) {
+      if(position == compressed.length) {
+        ensureCompressedCapacity(compressed.length + 1);
+      }
+      position += deflater.deflate(compressed, position, compressed.length - position);
+    }
+
+    if(compression == GelfCompression.GZIP) {
+      crc.reset();
+      crc.update(bytes, offset, length);
+      ensureCompressedCapacity(position + GZIP_TRAILER_SIZE);
+      position = writeIntLE(compressed, position, (int)crc.getValue());
+      position = writeIntLE(compressed, position, length);
+    }
+    return position;
+  }
+
+  /**
+   * Grow compressed buffer, at least doubling it, if its capacity is less than requested.
+   *
+   * @param capacity minimum capacity.
+   */
+  private void ensureCompressedCapacity(int capacity)
+  {
+    if(compressed.length < capacity) {
+      byte[] newCompressed = new byte[Math.max(capacity, Math.max(64, 2 * compressed.length))];
+      System.arraycopy(compressed, 0, newCompressed, 0, compressed.length);
+      compressed = newCompressed;
+    }
+  }
+
+  private static int writeIntLE(byte[] bytes, int position, int value)
+  {
+    bytes[position++] = (byte)value;
+    bytes[position++] = (byte)(value >>> 8);
+    bytes[position++] = (byte)(value >>> 16);
+    bytes[position++] = (byte)(value >>> 24);
+    return position;
+  }
+
+  @Override
+  public void close()
+  {
+    try {
+      channel.close();
+    }
+    catch(IOException ignore) {}
+    if(deflater != null) {
+      deflater.end();
+    }
+  }
+}
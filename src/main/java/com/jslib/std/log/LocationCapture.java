@@ -0,0 +1,15 @@
+package com.jslib.std.log;
+
+/**
+ * Caller location details captured on log record, configurable per logger pattern. Location capture needs a stack walk
+ * on application thread and is the most expensive part of log writing; hot loggers can disable it.
+ */
+enum LocationCapture
+{
+  /** Do not capture caller location. */
+  OFF,
+  /** Capture only caller class and method names, stored in <code>log_class</code> and <code>log_method</code>. */
+  METHOD,
+  /** Capture caller class, method, source file and line number. */
+  FULL
+}
@@ -0,0 +1,79 @@
+package com.jslib.std.log;
+
+/**
+ * Wall clock for log records timestamp, with configurable precision. On {@link Precision#MILLIS} this clock is just
+ * system current time. On {@link Precision#MICROS} time is extrapolated from an anchor, pairing wall clock with
+ * monotonic nanoseconds timer, since Java 8 has no portable microseconds wall clock.
+ * <p>
+ * Anchor is refreshed periodically to follow wall clock adjustments but never backwards for small differences, so that
+ * timestamps remain monotonic. Anchor is immutable and published via volatile field, so this clock is thread safe and
+ * lock free.
+ */
+class LogClock
+{
+  /** Timestamp precision. */
+  public enum Precision
+  {
+    MILLIS, MICROS
+  }
+
+  /** Period for re-synchronizing anchor with wall clock. */
+  private static final long ANCHOR_PERIOD_NANOS = 60 * 1000000000L;
+  /** Difference between wall clock and extrapolated time larger than this value is considered a clock step. */
+  private static final long CLOCK_STEP_MICROS = 1000000L;
+
+  private final Precision precision;
+  private volatile Anchor anchor;
+
+  public LogClock(Precision precision)
+  {
+    this.precision = precision;
+    this.anchor = new Anchor(System.currentTimeMillis() * 1000, System.nanoTime());
+  }
+
+  public Precision getPrecision()
+  {
+    return precision;
+  }
+
+  /**
+   * Get current wall clock time, in microseconds since epoch. On milliseconds precision returned value is always a
+   * multiple of 1000.
+   *
+   * @return current time in microseconds.
+   */
+  public long currentTimeMicros()
+  {
+    if(precision == Precision.MILLIS) {
+      return System.currentTimeMillis() * 1000;
+    }
+
+    Anchor anchor = this.anchor;
+    long nanoTime = System.nanoTime();
+    long elapsedNanos = nanoTime - anchor.nanoTime;
+    long micros = anchor.epochMicros + elapsedNanos / 1000;
+    if(elapsedNanos < ANCHOR_PERIOD_NANOS) {
+      return micros;
+    }
+
+    long wallMicros = System.currentTimeMillis() * 1000;
+    if(Math.abs(wallMicros - micros) < CLOCK_STEP_MICROS) {
+      // keep extrapolated value if wall clock is behind, in order to not go backward
+      wallMicros = Math.max(wallMicros, micros);
+    }
+    this.anchor = new Anchor(wallMicros, nanoTime);
+    return wallMicros;
+  }
+
+  private static final class Anchor
+  {
+    final long epochMicros;
+    final long nanoTime;
+
+    Anchor(long epochMicros, long nanoTime)
+    {
+      this.epochMicros = epochMicros;
+      this.nanoTime = nanoTime;
+    }
+  }
+}
@@ -1,9 +1,5 @@
 package com.jslib.std.log;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.function.BiConsumer;
-
 import com.jslib.api.log.LogContext;
 
 class LogContextImpl implements LogContext
@@ -28,33 +24,62 @@ class LogContextImpl implements LogContext
     return context;
   }
 
-  private final Map<String, String> values;
+  /** Current context values, replaced on every change. */
+  private LogContextSnapshot snapshot;
 
   public LogContextImpl()
   {
-    this.values = new LinkedHashMap<>();
+    this.snapshot = LogContextSnapshot.EMPTY;
   }
 
   @Override
   public void put(String name, String value)
   {
-    values.put(name, value);
+    snapshot = snapshot.with(name, value);
+  }
+
+  /**
+   * Put typed long value, encoded as JSON number. Trace timestamp stored as long is used without parsing. This method
+   * is not part of log context API; applications use {@link LogContexts#put(String, long)}.
+   * 
+   * @param name value name,
+   * @param value long value.
+   */
+  public void put(String name, long value)
+  {
+    snapshot = snapshot.with(name, value);
   }
 
   @Override
   public String get(String name)
   {
-    return values.get(name);
+    Object value = snapshot.get(name);
+    return value != null ? value.toString() : null;
+  }
+
+  /**
+   * Get current context values. Returned snapshot is immutable and is not affected by next context changes.
+   * 
+   * @return context snapshot.
+   */
+  public LogContextSnapshot snapshot()
+  {
+    return snapshot;
   }
 
-  public void forEach(BiConsumer<String, String> consumer)
+  /**
+   * Replace context values with given snapshot, e.g. snapshot captured on another thread.
+   * 
+   * @param snapshot context snapshot.
+   */
+  void restore(LogContextSnapshot snapshot)
   {
-    values.forEach(consumer);
+    this.snapshot = snapshot;
   }
 
   @Override
   public void clear()
   {
-    values.clear();
+    snapshot = LogContextSnapshot.EMPTY;
   }
 }
@@ -0,0 +1,137 @@
+package com.jslib.std.log;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable snapshot of a thread log context, shared by all log records written while context is not changed. Log
+ * context replaces its snapshot on every change, copy on write, so that records reference context values instead of
+ * copying them.
+ * <p>
+ * Snapshot caches context values encoded as JSON fields fragment, created by sender thread on first encoded record and
+ * reused by next records. Trace timestamp is also resolved once, when snapshot is created, and not parsed per record.
+ */
+final class LogContextSnapshot
+{
+  /** Context value name for trace start, in system nano time, used to compute trace offset of log records. */
+  public static final String TRACE_TIMESTAMP = "trace_timestamp";
+
+  public static final LogContextSnapshot EMPTY = new LogContextSnapshot(new String[0], new Object[0]);
+
+  private final String[] names;
+  private final Object[] values;
+  private final boolean hasTraceTimestamp;
+  private final long traceTimestamp;
+
+  /** Context fields encoded as JSON fragment, lazily created by encoder; null if not yet encoded. */
+  private volatile byte[] encoded;
+
+  private LogContextSnapshot(String[] names, Object[] values)
+  {
+    this.names = names;
+    this.values = values;
+
+    Object traceTimestamp = get(TRACE_TIMESTAMP);
+    long timestamp = 0;
+    boolean hasTimestamp = false;
+    if(traceTimestamp instanceof Long) {
+      timestamp = (Long)traceTimestamp;
+      hasTimestamp = true;
+    }
+    else if(traceTimestamp instanceof String) {
+      try {
+        timestamp = Long.parseLong((String)traceTimestamp);
+        hasTimestamp = true;
+      }
+      catch(NumberFormatException ignore) {}
+    }
+    this.traceTimestamp = timestamp;
+    this.hasTraceTimestamp = hasTimestamp;
+  }
+
+  /**
+   * Create a new snapshot with named value added or replaced. This snapshot is not changed.
+   *
+   * @param name value name,
+   * @param value context value, possible null.
+   * @return new snapshot.
+   */
+  public LogContextSnapshot with(String name, Object value)
+  {
+    int index = indexOf(name);
+    if(index >= 0) {
+      Object[] newValues = values.clone();
+      newValues[index] = value;
+      return new LogContextSnapshot(names, newValues);
+    }
+
+    String[] newNames = Arrays.copyOf(names, names.length + 1);
+    Object[] newValues = Arrays.copyOf(values, values.length + 1);
+    newNames[names.length] = name;
+    newValues[values.length] = value;
+    return new LogContextSnapshot(newNames, newValues);
+  }
+
+  public Object get(String name)
+  {
+    int index = indexOf(name);
+    return index >= 0 ? values[index] : null;
+  }
+
+  public boolean has(String name)
+  {
+    return indexOf(name) >= 0;
+  }
+
+  public boolean isEmpty()
+  {
+    return names.length == 0;
+  }
+
+  /**
+   * Iterate context values in insertion order.
+   *
+   * @param consumer values consumer.
+   */
+  public void forEach(BiConsumer<String, Object> consumer)
+  {
+    for(int i = 0; i < names.length; ++i) {
+      consumer.accept(names[i], values[i]);
+    }
+  }
+
+  public boolean hasTraceTimestamp()
+  {
+    return hasTraceTimestamp;
+  }
+
+  /**
+   * Get trace start timestamp, valid only if {@link #hasTraceTimestamp()}.
+   *
+   * @return trace timestamp, in system nano time.
+   */
+  public long getTraceTimestamp()
+  {
+    return traceTimestamp;
+  }
+
+  public byte[] getEncoded()
+  {
+    return encoded;
+  }
+
+  public void setEncoded(byte[] encoded)
+  {
+    this.encoded = encoded;
+  }
+
+  private int indexOf(String name)
+  {
+    for(int i = 0; i < names.length; ++i) {
+      if(names[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
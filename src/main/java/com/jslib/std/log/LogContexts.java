@@ -0,0 +1,33 @@
+package com.jslib.std.log;
+
+/**
+ * Typed access to current thread log context, for values not covered by {@link com.jslib.api.log.LogContext} string
+ * API. Long values are stored as numbers and encoded as JSON numbers; a trace timestamp stored as long is used by log
+ * records without parsing.
+ */
+public final class LogContexts
+{
+  private LogContexts()
+  {
+  }
+
+  /**
+   * Put long value on current thread log context, replacing existing value with the same name.
+   *
+   * @param name value name,
+   * @param value long value.
+   */
+  public static void put(String name, long value)
+  {
+    LogContextImpl.get().put(name, value);
+  }
+
+  /**
+   * Start a trace on current thread log context: trace timestamp is set to current system nano time and log records
+   * written after include trace offset, in microseconds.
+   */
+  public static void beginTrace()
+  {
+    LogContextImpl.get().put(LogContextSnapshot.TRACE_TIMESTAMP, System.nanoTime());
+  }
+}
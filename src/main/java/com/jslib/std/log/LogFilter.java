@@ -0,0 +1,341 @@
+package com.jslib.std.log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.jslib.api.log.Level;
+
+/**
+ * Log filter expression compiled into a predicate evaluated on the logging thread, before log record is created. Log
+ * record is written only if filter accepts it.
+ * <p>
+ * Filter expression is made of comparisons joined by logical operators <code>&amp;&amp;</code>, <code>||</code> and
+ * <code>!</code>, with parentheses for grouping. A comparison has a field on left side and a value on right side; value
+ * is a quoted string, with backslash escapes, or a bare word, e.g. a level name. Supported fields:
+ * <ul>
+ * <li><code>log_name</code> - logger name,
+ * <li><code>log_level</code> - record level,
+ * <li><code>log_thread</code> - current thread name,
+ * <li><code>ctx.name</code> - log context value for given name, null if missing.
+ * </ul>
+ * String fields support operators <code>==</code>, <code>!=</code>, <code>^=</code> (starts with), <code>$=</code>
+ * (ends with) and <code>*=</code> (contains); a null context value is only not equal to any value. Level field supports
+ * <code>==</code>, <code>!=</code> and relational operators <code>&lt;</code>, <code>&lt;=</code>, <code>&gt;</code>,
+ * <code>&gt;=</code> comparing by severity, e.g. <code>log_level &gt;= WARN</code> accepts WARN, ERROR and FATAL.
+ * <p>
+ * Example: <code>log_name ^= "com.acme.db" &amp;&amp; ctx.tenant == "42"</code>.
+ * <p>
+ * Compiled filter is immutable and can be shared between threads.
+ */
+final class LogFilter
+{
+  private final String expression;
+  private final Condition condition;
+
+  private LogFilter(String expression, Condition condition)
+  {
+    this.expression = expression;
+    this.condition = condition;
+  }
+
+  public String getExpression()
+  {
+    return expression;
+  }
+
+  /**
+   * Test if log record about to be written by current thread is accepted by this filter.
+   *
+   * @param loggerName logger name,
+   * @param level record level.
+   * @return true if log record is accepted.
+   */
+  public boolean accept(String loggerName, Level level)
+  {
+    return condition.test(loggerName, level);
+  }
+
+  /**
+   * Compile filter expression.
+   *
+   * @param expression filter expression.
+   * @return compiled filter.
+   * @throws IllegalArgumentException if filter expression is not valid.
+   */
+  public static LogFilter compile(String expression)
+  {
+    Parser parser = new Parser(expression);
+    Condition condition = parser.parseOr();
+    if(parser.token != null) {
+      throw parser.error("Unexpected token " + parser.token.text);
+    }
+    return new LogFilter(expression, condition);
+  }
+
+  @FunctionalInterface
+  private interface Condition
+  {
+    boolean test(String loggerName, Level level);
+  }
+
+  private static final String FIELD_NAME = "log_name";
+  private static final String FIELD_LEVEL = "log_level";
+  private static final String FIELD_THREAD = "log_thread";
+  private static final String CONTEXT_PREFIX = "ctx.";
+
+  /** Recursive descent parser for filter expression; operators precedence is, from lower: or, and, not. */
+  private static class Parser
+  {
+    private final String expression;
+    private final List<Token> tokens;
+    private int tokenIndex;
+    private Token token;
+
+    Parser(String expression)
+    {
+      this.expression = expression;
+      this.tokens = tokenize(expression);
+      next();
+    }
+
+    Condition parseOr()
+    {
+      Condition condition = parseAnd();
+      while(accept("||")) {
+        Condition left = condition;
+        Condition right = parseAnd();
+        condition = (loggerName, level) -> left.test(loggerName, level) || right.test(loggerName, level);
+      }
+      return condition;
+    }
+
+    Condition parseAnd()
+    {
+      Condition condition = parseNot();
+      while(accept("&&")) {
+        Condition left = condition;
+        Condition right = parseNot();
+        condition = (loggerName, level) -> left.test(loggerName, level) && right.test(loggerName, level);
+      }
+      return condition;
+    }
+
+    Condition parseNot()
+    {
+      if(accept("!")) {
+        Condition condition = parseNot();
+        return (loggerName, level) -> !condition.test(loggerName, level);
+      }
+      if(accept("(")) {
+        Condition condition = parseOr();
+        expect(")");
+        return condition;
+      }
+      return parseComparison();
+    }
+
+    Condition parseComparison()
+    {
+      if(token == null || token.type != Token.WORD) {
+        throw error("Missing field");
+      }
+      String field = token.text;
+      next();
+
+      if(token == null || token.type != Token.OPERATOR) {
+        throw error("Missing operator after " + field);
+      }
+      String operator = token.text;
+      next();
+
+      if(token == null || (token.type != Token.WORD && token.type != Token.STRING)) {
+        throw error("Missing value after " + operator);
+      }
+      String value = token.text;
+      next();
+
+      if(field.equals(FIELD_LEVEL)) {
+        return levelComparison(operator, value);
+      }
+
+      StringComparison comparison = stringComparison(operator, value);
+      if(field.equals(FIELD_NAME)) {
+        return (loggerName, level) -> comparison.test(loggerName);
+      }
+      if(field.equals(FIELD_THREAD)) {
+        return (loggerName, level) -> comparison.test(Thread.currentThread().getName());
+      }
+      if(field.startsWith(CONTEXT_PREFIX) && field.length() > CONTEXT_PREFIX.length()) {
+        String contextName = field.substring(CONTEXT_PREFIX.length());
+        return (loggerName, level) -> comparison.test(LogContextImpl.get().get(contextName));
+      }
+      throw error("Unknown field " + field);
+    }
+
+    private Condition levelComparison(String operator, String value)
+    {
+      Level expected;
+      try {
+        expected = Level.valueOf(value);
+      }
+      catch(IllegalArgumentException e) {
+        throw error("Invalid level " + value);
+      }
+
+      // level ordinal is reversed severity: lower ordinal is more severe
+      switch(operator) {
+      case "==":
+        return (loggerName, level) -> level == expected;
+      case "!=":
+        return (loggerName, level) -> level != expected;
+      case "<":
+        return (loggerName, level) -> level.ordinal() > expected.ordinal();
+      case "<=":
+        return (loggerName, level) -> level.ordinal() >= expected.ordinal();
+      case ">":
+        return (loggerName, level) -> level.ordinal() < expected.ordinal();
+      case ">=":
+        return (loggerName, level) -> level.ordinal() <= expected.ordinal();
+      default:
+        throw error("Operator " + operator + " not supported for " + FIELD_LEVEL);
+      }
+    }
+
+    private StringComparison stringComparison(String operator, String expected)
+    {
+      switch(operator) {
+      case "==":
+        return actual -> expected.equals(actual);
+      case "!=":
+        return actual -> !expected.equals(actual);
+      case "^=":
+        return actual -> actual != null && actual.startsWith(expected);
+      case "$=":
+        return actual -> actual != null && actual.endsWith(expected);
+      case "*=":
+        return actual -> actual != null && actual.contains(expected);
+      default:
+        throw error("Operator " + operator + " not supported for string fields");
+      }
+    }
+
+    private boolean accept(String text)
+    {
+      if(token != null && token.type == Token.OPERATOR && token.text.equals(text)) {
+        next();
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(String text)
+    {
+      if(!accept(text)) {
+        throw error("Missing " + text);
+      }
+    }
+
+    private void next()
+    {
+      token = tokenIndex < tokens.size() ? tokens.get(tokenIndex++) : null;
+    }
+
+    IllegalArgumentException error(String message)
+    {
+      return new IllegalArgumentException(String.format("Invalid log filter |%s|. %s.", expression, message));
+    }
+
+    private List<Token> tokenize(String expression)
+    {
+      List<Token> tokens = new ArrayList<>();
+      int length = expression.length();
+      int i = 0;
+
+      while(i < length) {
+        char c = expression.charAt(i);
+        if(Character.isWhitespace(c)) {
+          ++i;
+          continue;
+        }
+
+        if(c == '"') {
+          StringBuilder builder = new StringBuilder();
+          for(++i;; ++i) {
+            if(i >= length) {
+              throw error("Not terminated string");
+            }
+            c = expression.charAt(i);
+            if(c == '"') {
+              ++i;
+              break;
+            }
+            if(c == '\\' && i + 1 < length) {
+              c = expression.charAt(++i);
+            }
+            builder.append(c);
+          }
+          tokens.add(new Token(Token.STRING, builder.toString()));
+          continue;
+        }
+
+        if(isWordChar(c)) {
+          int start = i;
+          while(i < length && isWordChar(expression.charAt(i))) {
+            ++i;
+          }
+          tokens.add(new Token(Token.WORD, expression.substring(start, i)));
+          continue;
+        }
+
+        String operator = operator(expression, i);
+        if(operator == null) {
+          throw error("Unexpected character " + c);
+        }
+        tokens.add(new Token(Token.OPERATOR, operator));
+        i += operator.length();
+      }
+      return tokens;
+    }
+
+    private static final String[] OPERATORS = new String[] {
+        "==", "!=", "^=", "$=", "*=", "<=", ">=", "&&", "||", "<", ">", "!", "(", ")"
+    };
+
+    private static String operator(String expression, int index)
+    {
+      for(String operator : OPERATORS) {
+        if(expression.startsWith(operator, index)) {
+          return operator;
+        }
+      }
+      return null;
+    }
+
+    private static boolean isWordChar(char c)
+    {
+      return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '-';
+    }
+  }
+
+  @FunctionalInterface
+  private interface StringComparison
+  {
+    boolean test(String actual);
+  }
+
+  private static class Token
+  {
+    static final int WORD = 0;
+    static final int STRING = 1;
+    static final int OPERATOR = 2;
+
+    final int type;
+    final String text;
+
+    Token(int type, String text)
+    {
+      this.type = type;
+      this.text = text;
+    }
+  }
+}
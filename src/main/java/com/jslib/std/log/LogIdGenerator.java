@@ -0,0 +1,101 @@
+package com.jslib.std.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generator for unique log record identifiers. Identifier has record timestamp, in seconds, on high bits and an offset
+ * on low 16 bits; it is unique for a generator instance and monotonic per thread.
+ * <p>
+ * To avoid contention every thread claims a block of sequential identifiers from a shared counter and hands them out
+ * without synchronization; shared counter is touched only once per block. Shared counter is kept no lower than current
+ * second base and a thread block is abandoned when clock second advances beyond it, so that identifier second is never
+ * older than record timestamp second.
+ * <p>
+ * A second has room for 65536 identifiers. Blocks do not cross second boundary and shrink as second room runs out, so
+ * that identifiers claimed but not used by threads waste little of it. If more identifiers are requested in a second,
+ * generator borrows from next seconds and identifier second leads record timestamp till request rate drops; identifiers
+ * remain unique and monotonic per thread.
+ */
+class LogIdGenerator
+{
+  /** Number of identifiers claimed by a thread at once. */
+  private static final int BLOCK_SIZE = 256;
+  /** Number of low bits reserved for identifier offset inside a second. */
+  private static final int OFFSET_BITS = 16;
+  /** Number of identifiers that fit a second. */
+  private static final long SECOND_CAPACITY = 1L << OFFSET_BITS;
+  /** Near second capacity limit, block size is this fraction of remaining room. */
+  private static final int SHRINK_FACTOR = 16;
+
+  /** Next identifier not yet claimed by any thread. */
+  private final AtomicLong nextBlock;
+  private final ThreadLocal<Block> threadBlock;
+
+  public LogIdGenerator()
+  {
+    this.nextBlock = new AtomicLong();
+    this.threadBlock = new ThreadLocal<Block>()
+    {
+      @Override
+      protected Block initialValue()
+      {
+        return new Block();
+      }
+    };
+  }
+
+  /**
+   * Get next log identifier for a record created at given timestamp.
+   *
+   * @param timestampMillis record timestamp, in milliseconds.
+   * @return unique log identifier.
+   */
+  public long nextId(long timestampMillis)
+  {
+    long secondBase = (timestampMillis / 1000) << OFFSET_BITS;
+    Block block = threadBlock.get();
+    if(block.next == block.limit || block.next < secondBase) {
+      claimBlock(block, secondBase);
+    }
+    return block.next++;
+  }
+
+  private void claimBlock(Block block, long secondBase)
+  {
+    for(;;) {
+      long current = nextBlock.get();
+      long start = Math.max(current, secondBase);
+      long size = blockSize(start, secondBase);
+      if(nextBlock.compareAndSet(current, start + size)) {
+        block.next = start;
+        block.limit = start + size;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Get the size of a block starting at given identifier. While current second has room, block does not exceed a
+   * fraction of remaining room and never crosses second boundary; once second room is exhausted, full blocks are
+   * borrowed from next seconds.
+   *
+   * @param start first identifier of the block,
+   * @param secondBase current second shifted on high bits.
+   * @return block size, at least one.
+   */
+  private static long blockSize(long start, long secondBase)
+  {
+    long remaining = secondBase + SECOND_CAPACITY - start;
+    if(remaining <= 0) {
+      return BLOCK_SIZE;
+    }
+    return Math.max(1, Math.min(BLOCK_SIZE, remaining / SHRINK_FACTOR));
+  }
+
+  /** Identifiers range owned by a thread; accessed only by owning thread. */
+  private static final class Block
+  {
+    long next;
+    long limit;
+  }
+}
@@ -12,12 +12,17 @@ class LogImpl implements Log
 
   /** Configured log level. This level control which logging variants are enabled, e.g. trace, debug, etc. */
   private volatile Level level;
+  /** Caller location details captured on log records written by this logger. */
+  private volatile LocationCapture location;
+  /** Records sampling, null if records from this logger are not sampled. */
+  private volatile LogSampling sampling;
 
-  public LogImpl(LogPrinter printer, String name, Level level)
+  public LogImpl(LogPrinter printer, String name, Level level, LocationCapture location)
   {
     this.printer = printer;
     this.name = name;
     this.level = level;
+    this.location = location;
   }
 
   public String getName()
@@ -35,98 +40,135 @@ class LogImpl implements Log
     return level;
   }
 
+  public void setLocation(LocationCapture location)
+  {
+    this.location = location;
+  }
+
+  public LocationCapture getLocation()
+  {
+    return location;
+  }
+
+  public void setSampling(LogSampling sampling)
+  {
+    this.sampling = sampling;
+  }
+
+  public LogSampling getSampling()
+  {
+    return sampling;
+  }
+
   @Override
   public void trace(String message, Object... args)
   {
-    if(level.ordinal() >= Level.TRACE.ordinal()) {
-      printer.write(name, Level.TRACE, message, args);
+    if(isEnabled(Level.TRACE)) {
+      printer.write(this, Level.TRACE, message, args);
     }
   }
 
   @Override
   public void debug(String message, Object... args)
   {
-    if(level.ordinal() >= Level.DEBUG.ordinal()) {
-      printer.write(name, Level.DEBUG, message, args);
+    if(isEnabled(Level.DEBUG)) {
+      printer.write(this, Level.DEBUG, message, args);
     }
   }
 
   @Override
   public void info(String message, Object... args)
   {
-    if(level.ordinal() >= Level.INFO.ordinal()) {
-      printer.write(name, Level.INFO, message, args);
+    if(isEnabled(Level.INFO)) {
+      printer.write(this, Level.INFO, message, args);
     }
   }
 
   @Override
   public void warn(String message, Object... args)
   {
-    if(level.ordinal() >= Level.WARN.ordinal()) {
-      printer.write(name, Level.WARN, message, args);
+    if(isEnabled(Level.WARN)) {
+      printer.write(this, Level.WARN, message, args);
     }
   }
 
   @Override
   public void warn(Throwable throwable)
   {
-    if(level.ordinal() >= Level.WARN.ordinal()) {
-      printer.write(name, Level.WARN, Strings.throwable(throwable));
+    if(isEnabled(Level.WARN)) {
+      printer.write(this, Level.WARN, Strings.throwable(throwable));
     }
   }
 
   @Override
   public void error(String message, Object... args)
   {
-    if(level.ordinal() >= Level.ERROR.ordinal()) {
-      printer.write(name, Level.ERROR, message, args);
+    if(isEnabled(Level.ERROR)) {
+      printer.write(this, Level.ERROR, message, args);
     }
   }
 
   @Override
   public void error(Throwable throwable)
   {
-    if(level.ordinal() >= Level.ERROR.ordinal()) {
-      printer.write(name, Level.ERROR, Strings.throwable(throwable));
+    if(isEnabled(Level.ERROR)) {
+      printer.write(this, Level.ERROR, Strings.throwable(throwable));
     }
   }
 
   @Override
   public void fatal(String message, Object... args)
   {
-    if(level.ordinal() >= Level.FATAL.ordinal()) {
-      printer.write(name, Level.FATAL, message, args);
+    if(isEnabled(Level.FATAL)) {
+      printer.write(this, Level.FATAL, message, args);
     }
   }
 
   @Override
   public void fatal(Throwable throwable)
   {
-    if(level.ordinal() >= Level.FATAL.ordinal()) {
-      printer.write(name, Level.FATAL, Strings.throwable(throwable));
+    if(isEnabled(Level.FATAL)) {
+      printer.write(this, Level.FATAL, Strings.throwable(throwable));
+    }
+  }
+
+  /**
+   * Test if log record for given level is enabled by this logger level, kept by sampling, if configured, and accepted
+   * by log filter. Sampling and filter are tested only if level is enabled.
+   * 
+   * @param recordLevel log record level.
+   * @return true if log record should be written.
+   */
+  private boolean isEnabled(Level recordLevel)
+  {
+    if(level.ordinal() < recordLevel.ordinal()) {
+      return false;
     }
+    LogSampling sampling = this.sampling;
+    return (sampling == null || sampling.keep(recordLevel)) && printer.isAccepted(this, recordLevel);
   }
 
+  /** Stack trace dump heading; exception is passed as message extra argument and rendered by sender thread. */
   private static final String STACK_TRACE_HEADING = " Stack trace dump:{__message_extra__}";
 
   @Override
   public void dump(String message, Throwable throwable)
   {
-    if(level.ordinal() >= Level.FATAL.ordinal()) {
+    if(isEnabled(Level.FATAL)) {
       if(message != null) {
         message += STACK_TRACE_HEADING;
       }
       else {
         message = STACK_TRACE_HEADING;
       }
-      printer.write(name, Level.FATAL, message, Strings.stackTrace(throwable));
+      printer.write(this, Level.FATAL, message, throwable);
     }
   }
 
   @Override
   public void dump(Throwable throwable)
   {
-    if(level.ordinal() >= Level.FATAL.ordinal()) {
+    if(isEnabled(Level.FATAL)) {
       String message;
       if(throwable.getMessage() != null) {
         message = Strings.throwable(throwable) + STACK_TRACE_HEADING;
@@ -134,7 +176,7 @@ class LogImpl implements Log
       else {
         message = STACK_TRACE_HEADING;
       }
-      printer.write(name, Level.FATAL, message, Strings.stackTrace(throwable));
+      printer.write(this, Level.FATAL, message, throwable);
     }
   }
 }
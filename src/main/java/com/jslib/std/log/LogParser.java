@@ -6,77 +6,103 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
-
+import java.util.function.Supplier;
+
+/**
+ * Log message parser resolving parameters with arguments values. Message is compiled once into a {@link LogTemplate},
+ * cached by message string, and this parser renders template segments in a single pass.
+ * <p>
+ * Arguments of {@link Supplier} type are resolved by parser, before any other argument processing, so that expensive
+ * arguments values are computed by thread parsing the message, not by thread writing the log record.
+ * <p>
+ * Parser instance holds state of last parsed message and is meant to be reused by a single thread, e.g. log sender
+ * thread. Parameters map returned by {@link #getParameters()} is reused too and is valid till next parse.
+ */
 public class LogParser
 {
+  /** Default maximum number of cached templates. */
+  private static final int DEF_CACHE_SIZE = 4096;
+  /** Parameter storing stack fingerprint of dumped exception, if stack traces deduplication is enabled. */
+  private static final String STACK_FINGERPRINT = "stack_fingerprint";
+
+  private final TemplateCache templates;
+  private final StackTraceRenderer stackTraceRenderer;
   private final Map<String, Object> parameters;
+  private final StringBuilder messageBuilder;
   private String messageExtra;
 
   public LogParser()
   {
+    this(new TemplateCache(DEF_CACHE_SIZE));
+  }
+
+  public LogParser(TemplateCache templates)
+  {
+    this(templates, new StackTraceRenderer());
+  }
+
+  public LogParser(TemplateCache templates, StackTraceRenderer stackTraceRenderer)
+  {
+    this.templates = templates;
+    this.stackTraceRenderer = stackTraceRenderer;
     this.parameters = new HashMap<>();
+    this.messageBuilder = new StringBuilder();
   }
 
   public String parse(String message, Object... arguments)
   {
+    parameters.clear();
+    messageExtra = null;
+
     if(arguments.length == 0) {
       return message;
     }
-    
-    StringBuilder messageBuilder = new StringBuilder();
-    StringBuilder parameterBuilder = new StringBuilder();
-
-    // flag true while state machine is inside parameter, detected by '{' and lasting till '}'
-    boolean parameter = false;
 
-    for(int i = 0, argumentIndex = 0; i < message.length(); ++i) {
-      char c = message.charAt(i);
+    resolveSuppliers(arguments);
+    LogTemplate template = templates.get(message);
+    messageBuilder.setLength(0);
 
-      if(c == '%') {
-        messageBuilder.append(format(message.substring(i), arguments));
+    for(int i = 0, argumentIndex = 0; i < template.size(); ++i) {
+      switch(template.type(i)) {
+      case LogTemplate.LITERAL:
+        messageBuilder.append(template.text(i));
         break;
-      }
 
-      // ignore parameter name that is not supported by log4j, if any present
-      if(parameter) {
-        if(c == '}') {
-          parameter = false;
-          // parameter without argument just print original text
-          if(argumentIndex < arguments.length) {
-            String parameterName = parameterBuilder.toString();
-            if(parameterName.startsWith("__") && parameterName.endsWith("__")) {
-              messageExtra = arguments[argumentIndex] instanceof String? (String)arguments[argumentIndex]: arguments[argumentIndex].toString();
-              break;
-            }
-            // if argument is present replace {} with argument string representation
-            messageBuilder.append(format(arguments[argumentIndex]));
-            // and store arguments as structured log property, but only if is not anonymous (empty parameter name)
-            if(!parameterName.isEmpty()) {
-              parameters.put(parameterName, arguments[argumentIndex]);
-            }
-            ++argumentIndex;
-          }
-          else {
-            messageBuilder.append(c);
+      case LogTemplate.PARAMETER:
+        // parameter without argument just print original text
+        if(argumentIndex < arguments.length) {
+          // if argument is present replace {} with argument string representation
+          messageBuilder.append(format(arguments[argumentIndex]));
+          // and store arguments as structured log property, but only if is not anonymous (empty parameter name)
+          if(!template.text(i).isEmpty()) {
+            parameters.put(template.text(i), arguments[argumentIndex]);
           }
-          continue;
+          ++argumentIndex;
         }
-        parameterBuilder.append(c);
-        continue;
-      }
+        else {
+          messageBuilder.append("{}");
+        }
+        break;
+
+      case LogTemplate.EXTRA:
+        if(argumentIndex < arguments.length) {
+          messageExtra = extra(arguments[argumentIndex]);
+          return messageBuilder.toString();
+        }
+        messageBuilder.append("{}");
+        break;
 
-      if(c == '{') {
-        parameter = true;
-        parameterBuilder.setLength(0);
+      case LogTemplate.OPEN:
+        // unterminated parameter prints opening brace only if there are no more arguments
         if(argumentIndex >= arguments.length) {
-          // if no more arguments append '{'
-          messageBuilder.append(c);
+          messageBuilder.append('{');
         }
-        continue;
-      }
+        break;
 
-      // text content
-      messageBuilder.append(c);
+      case LogTemplate.PRINTF:
+        format(messageBuilder, template.printf(), arguments);
+        return messageBuilder.toString();
+      }
     }
 
     return messageBuilder.toString();
@@ -98,8 +124,45 @@ public class LogParser
   }
 
   /**
-   * Return formatted string with arguments injected or original message if format or arguments are invalid. This method
-   * does not throw exception on bad format; it simply returns original message.
+   * Get message extra text from its argument. Throwable is rendered as stack trace; if stack trace deduplication is
+   * enabled, stack fingerprint is stored as parameter.
+   * 
+   * @param argument message extra argument.
+   * @return message extra text.
+   */
+  private String extra(Object argument)
+  {
+    if(argument instanceof String) {
+      return (String)argument;
+    }
+    if(argument instanceof Throwable) {
+      String stackTrace = stackTraceRenderer.render((Throwable)argument);
+      if(stackTraceRenderer.isDeduplicating()) {
+        parameters.put(STACK_FINGERPRINT, stackTraceRenderer.fingerprintHex());
+      }
+      return stackTrace;
+    }
+    return argument.toString();
+  }
+
+  /**
+   * Replace in place {@link Supplier} arguments with supplied values. Exceptions thrown by suppliers are not hidden.
+   * 
+   * @param arguments log message arguments.
+   */
+  public static void resolveSuppliers(Object[] arguments)
+  {
+    for(int i = 0; i < arguments.length; ++i) {
+      if(arguments[i] instanceof Supplier) {
+        arguments[i] = ((Supplier<?>)arguments[i]).get();
+      }
+    }
+  }
+
+  /**
+   * Append formatted string with arguments injected or original format if format or arguments are invalid. This method
+   * does not throw exception on bad format; it simply appends original format. Still, exceptions thrown by arguments
+   * while converted to string are not hidden.
    * <p>
    * This method takes care to pre-process arguments as follow:
    * <ul>
@@ -111,33 +174,16 @@ public class LogParser
    * </ul>
    * All pre-processed arguments are replaced with string value and format specifier should be also string (%s).
    * 
-   * @param message formatted message,
+   * @param builder string builder to append formatted string to,
+   * @param printf compiled printf format,
    * @param args variable number of formatting arguments.
-   * @return built string or original message if format or arguments are not valid.
    */
-  private static final String format(String message, Object... args)
+  private static void format(StringBuilder builder, PrintfFormat printf, Object... args)
   {
-    if(message == null) {
-      return null;
-    }
-    if(message.isEmpty()) {
-      return "";
-    }
-    if(args.length == 0) {
-      return message;
-    }
-
     for(int i = 0; i < args.length; i++) {
       args[i] = format(args[i]);
     }
-
-    try {
-      return String.format(message, args);
-    }
-    catch(Throwable unused) {
-      // return unformatted message if format fails
-      return message;
-    }
+    printf.formatTo(builder, args);
   }
 
   private static Object format(Object object)
@@ -2,15 +2,16 @@ package com.jslib.std.log;
 
 import java.io.IOException;
 import java.io.PrintStream;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.jslib.api.log.Level;
@@ -23,32 +24,60 @@ public class LogPrinter implements LogTransaction, Runnable
    * enqueued log events still existing at timeout moment are lost.
    */
   private static final int PRINTER_CLOSE_TIMEOUT = 8000;
+  private static final String TCP_SCHEME = "tcp";
+  /** Message of summary record for records suppressed by rate limits; named parameters are stored as record fields. */
+  private static final String SUPPRESSED_SUMMARY = "Suppressed {suppressed_count} records with message: {suppressed_message}";
 
-  private static long messageBaseTimestamp;
-  private static int messageOffset;
-
+  private final Configuration configuration;
   private final Map<String, String> contextParameters;
-  private final PrintStream printer;
-
-  private final DatagramSocket socket;
-  private final InetAddress serverAddress;
-  private final int serverPort;
+  private final LogClock clock;
+  private final LogIdGenerator idGenerator;
 
-  private static final class Transaction
-  {
-    final BlockingQueue<GelfRecord> queue = new LinkedBlockingQueue<>();
-    boolean active;
-  }
-
-  private final ThreadLocal<Transaction> threadTransaction;
-  private final BlockingQueue<GelfRecord> logsQueue;
+  /** Log destinations, each with its own queue and worker. Encoded batches are shared by all sinks. */
+  private final Sink[] sinks;
+  private final EncodedBatch.Pool batchPool;
+  /**
+   * Console stream, if console sink is enabled, in which case records processing failures are printed on console. Null
+   * if console is disabled. Diagnostics are printed directly and are not part of encoded batches shared by sinks.
+   */
+  private final PrintStream console;
+
+  private final ThreadLocal<TransactionBuffer> threadTransaction;
+  /** Per message template rate limiter, null if rate limits are not configured. */
+  private final RateLimiter rateLimiter;
+
+  /** Flight recorders capacity, zero if flight recorder is disabled. */
+  private final int recorderCapacity;
+  private final Level recorderThreshold;
+  private final Level recorderTrigger;
+  private final ThreadLocal<FlightRecorder> threadRecorder;
+  /** All threads flight recorders, for on demand flush; entries are removed when thread is garbage collected. */
+  private final Map<Thread, FlightRecorder> recorders;
+  private final RecordQueue logsQueue;
+
+  private final int transactionMaxRecords;
+  private final int transactionMaxBytes;
+  private final TransactionSpill transactionSpill;
+  /** Resolve supplier arguments on writer thread instead of sender thread. */
+  private final boolean supplierEager;
+  private final int templateCacheSize;
+  private final int batchSize;
+  private final long lingerNanos;
+  private final PrinterStatistics statistics;
 
   private final Thread senderThread;
   private final AtomicBoolean running;
 
   public LogPrinter(Configuration configuration) throws IOException
   {
+    this.configuration = configuration;
     this.contextParameters = configuration.getContextParameters();
+    this.clock = new LogClock(configuration.getTimestampPrecision());
+    this.idGenerator = new LogIdGenerator();
+
+    this.statistics = new PrinterStatistics();
+    int sinkQueueCapacity = configuration.getSinkQueueCapacity();
+    List<Sink> sinks = new ArrayList<>();
 
     PrintStream printer;
     switch(configuration.getConsolePrinter()) {
@@ -61,22 +90,53 @@ public class LogPrinter implements LogTransaction, Runnable
     default:
       printer = null;
     }
-    this.printer = printer;
+    if(printer != null) {
+      sinks.add(new ConsoleSink(printer, sinkQueueCapacity));
+    }
+    this.console = printer;
 
     URI serverAddress = configuration.getServerAddress();
     if(serverAddress != null) {
-      this.serverPort = serverAddress.getPort();
-      this.serverAddress = InetAddress.getByName(serverAddress.getHost());
-      this.socket = new DatagramSocket();
+      GelfTransport transport;
+      if(TCP_SCHEME.equalsIgnoreCase(serverAddress.getScheme())) {
+        transport = new GelfTcpSender(InetSocketAddress.createUnresolved(serverAddress.getHost(), serverAddress.getPort()), configuration.getGelfTcpPendingSize(), configuration.getGelfTcpWriteTimeout());
+      }
+      else {
+        transport = new GelfUdpSender(InetAddress.getByName(serverAddress.getHost()), serverAddress.getPort(), configuration.getGelfCompression(), configuration.getGelfCompressionThreshold(), configuration.getGelfChunkSize());
+      }
+      sinks.add(new GelfSink(transport, statistics, sinkQueueCapacity));
     }
-    else {
-      this.serverPort = 0;
-      this.serverAddress = null;
-      this.socket = null;
+
+    String filePath = configuration.getFilePath();
+    if(filePath != null) {
+      sinks.add(new FileSink(filePath, configuration.getFileSegmentSize(), configuration.getFileRolloverPeriod(), configuration.isFileCompress(), sinkQueueCapacity));
+    }
+
+    this.sinks = sinks.toArray(new Sink[0]);
+    this.batchPool = new EncodedBatch.Pool(sinkQueueCapacity + 2);
+    for(Sink sink : this.sinks) {
+      sink.start();
     }
 
     this.threadTransaction = new ThreadLocal<>();
-    this.logsQueue = new LinkedBlockingQueue<>();
+    this.logsQueue = new RecordQueue(configuration.getQueueCapacity(), configuration.getQueueOverflow(), configuration.getQueueOverflowLevel());
+
+    LoggerTrie<RateLimiter.Rate> rateLimits = configuration.getRateLimits();
+    this.rateLimiter = rateLimits != null ? new RateLimiter(rateLimits, configuration.getSuppressedSummaryPeriod(), this::writeSummary) : null;
+
+    this.recorderCapacity = configuration.getRecorderCapacity();
+    this.recorderThreshold = configuration.getRecorderThreshold();
+    this.recorderTrigger = configuration.getRecorderTrigger();
+    this.threadRecorder = new ThreadLocal<>();
+    this.recorders = Collections.synchronizedMap(new WeakHashMap<>());
+
+    this.transactionMaxRecords = configuration.getTransactionMaxRecords();
+    this.transactionMaxBytes = configuration.getTransactionMaxBytes();
+    this.transactionSpill = configuration.getTransactionSpill();
+    this.supplierEager = configuration.isSupplierEager();
+    this.templateCacheSize = configuration.getTemplateCacheSize();
+    this.batchSize = configuration.getBatchSize();
+    this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(configuration.getBatchLinger());
 
     this.senderThread = new Thread(this);
     this.running = new AtomicBoolean();
@@ -88,187 +148,313 @@ public class LogPrinter implements LogTransaction, Runnable
   @Override
   public void beginTransaction()
   {
-    Transaction transaction = threadTransaction.get();
+    TransactionBuffer transaction = threadTransaction.get();
     if(transaction == null) {
-      transaction = new Transaction();
+      transaction = new TransactionBuffer(logsQueue, transactionMaxRecords, transactionMaxBytes, transactionSpill, statistics);
       threadTransaction.set(transaction);
     }
-    transaction.active = true;
+    transaction.begin();
   }
 
   @Override
   public void commitTransaction()
   {
-    Transaction transaction = threadTransaction.get();
-    if(transaction == null) {
-      return;
-    }
-
-    Iterator<GelfRecord> records = transaction.queue.iterator();
-    while(records.hasNext()) {
-      GelfRecord record = records.next();
-      Object value = record.getField("log_level_ordinal");
-      if(value != null && value instanceof Integer) {
-        Integer level = (Integer)value;
-        if(level <= Level.INFO.ordinal()) {
-          enqueue(logsQueue, record);
-        }
-      }
+    TransactionBuffer transaction = threadTransaction.get();
+    if(transaction != null) {
+      transaction.commit();
     }
-
-    transaction.queue.clear();
-    transaction.active = false;
   }
 
   @Override
   public void rollbackTransaction()
   {
-    Transaction transaction = threadTransaction.get();
-    if(transaction == null) {
-      return;
-    }
-
-    Iterator<GelfRecord> records = transaction.queue.iterator();
-    while(records.hasNext()) {
-      enqueue(logsQueue, records.next());
+    TransactionBuffer transaction = threadTransaction.get();
+    if(transaction != null) {
+      transaction.rollback();
     }
+  }
 
-    transaction.queue.clear();
-    transaction.active = false;
+  /**
+   * Test if log record is accepted by configured log filter. This test is performed by logger before building log
+   * record arguments, e.g. stack trace.
+   * 
+   * @param logger logger writing the record,
+   * @param level record level.
+   * @return true if there is no log filter or filter accepts the record.
+   */
+  public boolean isAccepted(LogImpl logger, Level level)
+  {
+    LogFilter filter = configuration.getLogFilter();
+    return filter == null || filter.accept(logger.getName(), level);
   }
 
-  public void write(String loggerName, Level level, String message, Object... arguments)
+  public void write(LogImpl logger, Level level, String message, Object... arguments)
   {
     assert level != Level.OFF;
+    if(rateLimiter != null && !rateLimiter.acquire(logger.getName(), message)) {
+      return;
+    }
+
+    if(supplierEager) {
+      // supplier exception is not propagated to application code; record is dropped, as when resolved by sender thread
+      try {
+        LogParser.resolveSuppliers(arguments);
+      }
+      catch(Throwable t) {
+        onFailedRecord("resolve", message, t);
+        return;
+      }
+    }
 
-    GelfRecord record = new GelfRecord(message, arguments);
+    long timestamp = clock.currentTimeMicros();
+    GelfRecord record = new GelfRecord(timestamp, message, arguments);
 
     record.setLevel(LEVELS.get(level));
 
-    if(messageBaseTimestamp < record.getBaseTimestamp()) {
-      messageOffset = -1;
-      messageBaseTimestamp = record.getBaseTimestamp();
-    }
-    ++messageOffset;
-
-    record.setField("log_id", (messageBaseTimestamp << 16) + (messageOffset & 0xFFFF));
-    record.setField("log_name", loggerName);
-    record.setField("log_level", level.name());
-    record.setField("log_level_ordinal", level.ordinal());
-    record.setField("log_thread", Thread.currentThread().getName());
-
-    StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-    // 0 - current thread class from where stack trace is extracted (Thread.java)
-    // 1 - this logger printer class (LogPrinter.java)
-    // 2 - logger implementation class (LogImpl.java)
-    // 3 - source class where logger was invoked
-    if(stackTrace.length > 3) {
-      StackTraceElement stackElement = stackTrace[3];
-      record.setField("log_class", stackElement.getClassName());
-      record.setField("log_method", stackElement.getMethodName());
-      if(stackElement.getLineNumber() >= 0) {
-        record.setField("log_file", stackElement.getFileName());
-        record.setField("log_line", stackElement.getLineNumber());
+    record.setLogId(idGenerator.nextId(timestamp / 1000));
+    record.setLoggerName(logger.getName());
+    record.setLogLevel(level);
+    record.setThreadName(Thread.currentThread().getName());
+
+    // records reference context snapshot instead of copying its values
+    LogContextSnapshot context = LogContextImpl.get().snapshot();
+    if(!context.isEmpty()) {
+      record.setContext(context);
+      if(context.hasTraceTimestamp()) {
+        record.setTraceOffset((System.nanoTime() - context.getTraceTimestamp()) / 1000.0D);
       }
     }
 
-    LogContextImpl.get().forEach((name, value) -> {
-      record.setField(name, value);
-    });
+    LogSampling sampling = logger.getSampling();
+    if(sampling != null && sampling.isSampled(level)) {
+      record.setField(LogSampling.FIELD, sampling.getRate());
+    }
 
-    String traceTimestamp = (String)record.getField("trace_timestamp");
-    if(traceTimestamp != null) {
-      try {
-        record.setField("trace_offset", (System.nanoTime() - Long.parseLong(traceTimestamp)) / 1000.0D);
+    LocationCapture location = logger.getLocation();
+    if(location != LocationCapture.OFF) {
+      StackTraceElement stackElement = CallerLocator.instance().locate(location);
+      if(stackElement != null) {
+        record.setLocation(stackElement.getClassName(), stackElement.getMethodName());
+        if(location == LocationCapture.FULL && stackElement.getLineNumber() >= 0) {
+          record.setSource(stackElement.getFileName(), stackElement.getLineNumber());
+        }
       }
-      catch(Throwable unused) {}
     }
 
-    Transaction transaction = threadTransaction.get();
-    if(transaction != null && transaction.active) {
-      enqueue(transaction.queue, record);
+    TransactionBuffer transaction = threadTransaction.get();
+    if(transaction != null && transaction.isActive()) {
+      transaction.add(record);
+      return;
     }
-    else {
-      enqueue(logsQueue, record);
+
+    if(recorderCapacity > 0) {
+      if(level.ordinal() > recorderThreshold.ordinal()) {
+        threadRecorder().add(record);
+        return;
+      }
+      if(level.ordinal() <= recorderTrigger.ordinal()) {
+        threadRecorder().flush(logsQueue);
+      }
     }
+    logsQueue.put(record, level);
   }
 
-  private static void enqueue(BlockingQueue<GelfRecord> queue, GelfRecord record)
+  /**
+   * Write summary record for records suppressed by rate limits, on behalf of the logger that wrote them.
+   * 
+   * @param loggerName name of the logger writing suppressed records,
+   * @param message message of suppressed records,
+   * @param suppressedCount number of suppressed records since previous summary.
+   */
+  private void writeSummary(String loggerName, String message, long suppressedCount)
   {
-    for(;;) {
-      try {
-        queue.put(record);
-        break;
-      }
-      catch(InterruptedException e) {}
-      catch(Exception e) {
-        System.err.printf("Fail to enqueue log event. Root cause: %s. Log message lost: %s%n", e.getMessage(), record.getMessage());
-      }
+    long timestamp = clock.currentTimeMicros();
+    GelfRecord record = new GelfRecord(timestamp, SUPPRESSED_SUMMARY, suppressedCount, message);
+    record.setLevel(LEVELS.get(Level.WARN));
+    record.setLogId(idGenerator.nextId(timestamp / 1000));
+    record.setLoggerName(loggerName);
+    record.setLogLevel(Level.WARN);
+    record.setThreadName(Thread.currentThread().getName());
+    logsQueue.put(record, Level.WARN);
+  }
+
+  private FlightRecorder threadRecorder()
+  {
+    FlightRecorder recorder = threadRecorder.get();
+    if(recorder == null) {
+      recorder = new FlightRecorder(recorderCapacity);
+      threadRecorder.set(recorder);
+      recorders.put(Thread.currentThread(), recorder);
+    }
+    return recorder;
+  }
+
+  /**
+   * Send log records kept in memory by flight recorders of all threads, for example on an external signal. Records
+   * from a thread are sent in order but records from different threads are not merged by time. This method does nothing
+   * if flight recorder is disabled.
+   */
+  public void flushRecorders()
+  {
+    FlightRecorder[] snapshot;
+    synchronized(recorders) {
+      snapshot = recorders.values().toArray(new FlightRecorder[0]);
+    }
+    for(FlightRecorder recorder : snapshot) {
+      recorder.flush(logsQueue);
     }
   }
 
   @Override
   public void run()
   {
-    GelfRecord record = null;
     running.set(true);
 
+    final GelfRecord[] batch = new GelfRecord[batchSize];
+    // offsets of encoded records inside encoder buffer, line separator excluded
+    final int[] starts = new int[batchSize];
+    final int[] ends = new int[batchSize];
+    final GelfEncoder encoder = new GelfEncoder();
+    final StackTraceRenderer stackTraceRenderer = new StackTraceRenderer(configuration.getStackDepth(), configuration.getStackFilter(), configuration.getStackDedupTtl());
+    final LogParser parser = new LogParser(new TemplateCache(templateCacheSize), stackTraceRenderer);
+
     while(running.get() || !logsQueue.isEmpty()) {
-      try {
-        record = logsQueue.take();
-      }
-      catch(InterruptedException e) {
+      int batchLength = drainBatch(batch);
+      if(batchLength == 0) {
         continue;
       }
 
-      try {
-        // include arguments as custom fields
-        LogParser parser = new LogParser();
-        String message = parser.parse(record.getMessage(), record.getArguments());
+      int encodedCount = 0;
+      for(int i = 0; i < batchLength; ++i) {
+        GelfRecord record = batch[i];
+        batch[i] = null;
 
-        for(String name : contextParameters.keySet()) {
-          if(!record.hasField(name)) {
-            record.setField(name, contextParameters.get(name));
+        try {
+          // include arguments as custom fields
+          String message = parser.parse(record.getMessage(), record.getArguments());
+
+          for(String name : contextParameters.keySet()) {
+            if(!record.hasField(name)) {
+              record.setField(name, contextParameters.get(name));
+            }
           }
-        }
-        
-        for(String name : parser.getParameters().keySet()) {
-          if(!record.hasField(name)) {
-            record.setField(name, parser.getParameter(name));
+
+          for(String name : parser.getParameters().keySet()) {
+            if(!record.hasField(name)) {
+              record.setField(name, parser.getParameter(name));
+            }
           }
+
+          // short message is message with parameters resolved
+          record.setShortMessage(message);
+          // GELF full message is for, usually large, extra data like context dump
+          record.setFullMessage(parser.getMessageExtra());
+        }
+        catch(Throwable t) {
+          onFailedRecord("process", record.getMessage(), t);
+          continue;
         }
 
-        // short message is message with parameters resolved
-        record.setShortMessage(message);
-        // GELF full message is for, usually large, extra data like context dump
-        record.setFullMessage(parser.getMessageExtra());
+        starts[encodedCount] = encoder.size();
+        try {
+          encoder.encode(record);
+        }
+        catch(Throwable t) {
+          // discard partially encoded record so that batch has only complete records
+          encoder.rewind(starts[encodedCount]);
+          onFailedRecord("encode", record.getMessage(), t);
+          continue;
+        }
+        ends[encodedCount++] = encoder.size();
+        encoder.encodeLineSeparator();
       }
-      catch(Throwable t) {
-        if(printer != null) {
-          printer.printf("Fail to process GELF record: %s. Exception: %s: %s%n", record.getMessage(), t.getClass().getCanonicalName(), t.getMessage());
+
+      // encoded bytes are copied once into a batch shared by all sinks; sink releases batch after writing it
+      if(sinks.length > 0 && encoder.size() > 0) {
+        EncodedBatch encodedBatch = batchPool.acquire(encoder.buffer().array(), encoder.size(), starts, ends, encodedCount, sinks.length);
+        for(Sink sink : sinks) {
+          sink.offer(encodedBatch);
         }
-        continue;
       }
+      statistics.onBatch(encodedCount, encoder.size());
+      encoder.reset();
+    }
+  }
+
+  /**
+   * Count log record failed on writer or sender thread and, if console is enabled, print failure on console.
+   * 
+   * @param operation failed operation, e.g. process or encode,
+   * @param message log message of the failed record,
+   * @param cause failure cause.
+   */
+  private void onFailedRecord(String operation, String message, Throwable cause)
+  {
+    statistics.onFailedRecord();
+    if(console != null) {
+      console.printf("Fail to %s GELF record: %s. Exception: %s: %s%n", operation, message, cause.getClass().getCanonicalName(), cause.getMessage());
+    }
+  }
+
+  /**
+   * Wait for at least one record then drain queue into given batch, till batch is full or queue is empty. If linger
+   * time is configured and batch is not full, keep waiting for more records up to linger time. Returns 0 if sender
+   * thread is interrupted before any record becomes available.
+   * 
+   * @param batch batch to fill with log records.
+   * @return number of records stored into batch.
+   */
+  private int drainBatch(GelfRecord[] batch)
+  {
+    try {
+      batch[0] = logsQueue.take();
+    }
+    catch(InterruptedException e) {
+      return 0;
+    }
 
-      final byte[] buffer = record.getBytes();
+    int length = 1 + logsQueue.drainTo(batch, 1, batch.length - 1);
+    if(lingerNanos == 0) {
+      return length;
+    }
+
+    long deadline = System.nanoTime() + lingerNanos;
+    while(length < batch.length) {
+      long remainingNanos = deadline - System.nanoTime();
+      if(remainingNanos <= 0) {
+        break;
+      }
       try {
-        if(socket != null) {
-          DatagramPacket packet = new DatagramPacket(buffer, buffer.length, serverAddress, serverPort);
-          socket.send(packet);
+        GelfRecord record = logsQueue.poll(remainingNanos, TimeUnit.NANOSECONDS);
+        if(record == null) {
+          break;
         }
+        batch[length++] = record;
       }
-      catch(Throwable t) {}
-
-      if(printer != null) {
-        printer.write(buffer, 0, buffer.length);
+      catch(InterruptedException e) {
+        // printer is closing; do not linger anymore
+        break;
       }
+      length += logsQueue.drainTo(batch, length, batch.length - length);
     }
+    return length;
+  }
+
+  public PrinterStatistics getStatistics()
+  {
+    return statistics;
+  }
 
-    System.err.printf("Thread %s closed.%n", Thread.currentThread().getName());
+  public long getDroppedCount()
+  {
+    return logsQueue.getDroppedCount();
   }
 
   public void close()
   {
+    if(rateLimiter != null) {
+      rateLimiter.close();
+    }
     running.set(false);
     senderThread.interrupt();
 
@@ -281,9 +467,23 @@ public class LogPrinter implements LogTransaction, Runnable
       catch(InterruptedException e) {}
     }
 
-    if(socket != null) {
-      socket.close();
+    // single closing line with printer statistics and sinks counters, printed after sinks wrote enqueued batches
+    StringBuilder summary = new StringBuilder(statistics.toString(logsQueue.getDroppedCount()));
+    for(Sink sink : sinks) {
+      sink.close();
+      summary.append(' ').append(sink);
     }
+    System.err.printf("Thread %s closed. %s%n", senderThread.getName(), summary);
+  }
+
+  /**
+   * Get log destinations, for health and drop counters.
+   * 
+   * @return log sinks.
+   */
+  Sink[] getSinks()
+  {
+    return sinks;
   }
 
   private static final Map<Level, SyslogLevel> LEVELS = new HashMap<>();
@@ -1,8 +1,11 @@
 package com.jslib.std.log;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.jslib.api.log.DefaultLogTransaction;
 import com.jslib.api.log.Log;
@@ -16,7 +19,14 @@ public class LogProviderImpl implements LogProvider, Configuration.LevelListener
   private final Configuration configuration;
   private final LogPrinter printer;
   private final LogTransaction transaction;
-  private final List<LogImpl> loggers;
+
+  /**
+   * Registry of created loggers, mapped by logger name. Loggers are weakly referenced so that loggers not used anymore
+   * by application, e.g. from unloaded class loaders, can be garbage collected; stale entries are purged on logger
+   * creation, see {@link #purgeLoggers()}.
+   */
+  private final Map<String, LoggerReference> loggers;
+  private final ReferenceQueue<LogImpl> collectedLoggers;
 
   public LogProviderImpl() throws IOException
   {
@@ -25,7 +35,8 @@ public class LogProviderImpl implements LogProvider, Configuration.LevelListener
     this.transaction = this.configuration.isLogTransaction() ? printer : DefaultLogTransaction.instance;
     this.configuration.setLevelListener(this);
 
-    this.loggers = new ArrayList<>();
+    this.loggers = new ConcurrentHashMap<>();
+    this.collectedLoggers = new ReferenceQueue<>();
   }
 
   @Override
@@ -46,21 +57,89 @@ public class LogProviderImpl implements LogProvider, Configuration.LevelListener
     return transaction;
   }
 
+  /**
+   * Get logger instance for requested name, creating it on first request. Returned instance is cached and the same
+   * instance is returned for the same logger name, as long as it is referenced by application.
+   * 
+   * @param loggerName logger name.
+   * @return logger instance.
+   */
   @Override
   public Log getLogger(String loggerName)
   {
-    return new LogImpl(printer, loggerName, configuration.getLoggerLevel(loggerName));
+    LoggerReference reference = loggers.get(loggerName);
+    if(reference != null) {
+      LogImpl logger = reference.get();
+      if(logger != null) {
+        return logger;
+      }
+    }
+
+    purgeLoggers();
+    // logger configuration is resolved and logger registered under configuration lock, that is held by commit while
+    // notifying level listener; a new logger either resolves committed configuration or is updated by listener
+    synchronized(configuration) {
+      LogImpl logger = new LogImpl(printer, loggerName, configuration.getLoggerLevel(loggerName), configuration.getLoggerLocation(loggerName));
+      logger.setSampling(configuration.getLoggerSampling(loggerName));
+      LoggerReference loggerReference = new LoggerReference(loggerName, logger, collectedLoggers);
+
+      for(;;) {
+        reference = loggers.putIfAbsent(loggerName, loggerReference);
+        if(reference == null) {
+          return logger;
+        }
+        LogImpl existingLogger = reference.get();
+        if(existingLogger != null) {
+          // concurrent thread created the same logger
+          return existingLogger;
+        }
+        if(loggers.replace(loggerName, reference, loggerReference)) {
+          return logger;
+        }
+      }
+    }
   }
 
   @Override
   public void close()
   {
+    configuration.close();
     printer.close();
   }
 
   @Override
   public void onLevelChange()
   {
-    loggers.forEach(logger -> logger.setLevel(configuration.getLoggerLevel(logger.getName())));
+    loggers.values().forEach(reference -> {
+      LogImpl logger = reference.get();
+      if(logger != null) {
+        logger.setLevel(configuration.getLoggerLevel(logger.getName()));
+        logger.setLocation(configuration.getLoggerLocation(logger.getName()));
+        logger.setSampling(configuration.getLoggerSampling(logger.getName()));
+      }
+    });
+  }
+
+  /**
+   * Remove registry entries for garbage collected loggers. Entry is removed only if still mapped to collected logger
+   * reference, since logger with the same name could be created meanwhile.
+   */
+  private void purgeLoggers()
+  {
+    Reference<? extends LogImpl> reference;
+    while((reference = collectedLoggers.poll()) != null) {
+      loggers.remove(((LoggerReference)reference).loggerName, reference);
+    }
+  }
+
+  private static class LoggerReference extends WeakReference<LogImpl>
+  {
+    final String loggerName;
+
+    LoggerReference(String loggerName, LogImpl logger, ReferenceQueue<LogImpl> queue)
+    {
+      super(logger, queue);
+      this.loggerName = loggerName;
+    }
   }
 }
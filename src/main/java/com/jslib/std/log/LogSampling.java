@@ -0,0 +1,93 @@
+package com.jslib.std.log;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.jslib.api.log.Level;
+
+/**
+ * Sampling of log records at and below a level, configured by logger pattern with format
+ * <code>LEVEL:kept/total</code>, e.g. <code>sample.com.acme.cache=DEBUG:1/100</code> keeps, on average, one of every
+ * hundred DEBUG and TRACE records written by <code>com.acme.cache</code> loggers. Records more severe than sampling
+ * level are always kept.
+ * <p>
+ * Keep decision is a thread local random draw, with no shared state between writer threads. Kept records carry
+ * {@link #FIELD} with sampling rate, that is, the probability a record is kept, so that downstream counts can be
+ * re-scaled.
+ */
+final class LogSampling
+{
+  /** Name of the field storing sampling rate on sampled records. */
+  public static final String FIELD = "sample_rate";
+
+  private final Level level;
+  private final int kept;
+  private final int total;
+  private final double rate;
+
+  private LogSampling(Level level, int kept, int total)
+  {
+    this.level = level;
+    this.kept = kept;
+    this.total = total;
+    this.rate = kept / (double)total;
+  }
+
+  /**
+   * Parse sampling configuration.
+   *
+   * @param value sampling with format <code>LEVEL:kept/total</code>.
+   * @return log sampling instance.
+   * @throws IllegalArgumentException if value is not a valid sampling.
+   */
+  public static LogSampling parse(String value)
+  {
+    int levelSeparator = value.indexOf(':');
+    int rateSeparator = value.indexOf('/', levelSeparator + 1);
+    if(levelSeparator != -1 && rateSeparator != -1) {
+      try {
+        Level level = Level.valueOf(value.substring(0, levelSeparator).trim());
+        int kept = Integer.parseInt(value.substring(levelSeparator + 1, rateSeparator).trim());
+        int total = Integer.parseInt(value.substring(rateSeparator + 1).trim());
+        if(kept > 0 && kept <= total) {
+          return new LogSampling(level, kept, total);
+        }
+      }
+      catch(IllegalArgumentException ignore) {
+        // number format exception is an illegal argument exception too
+      }
+    }
+    throw new IllegalArgumentException(String.format("Invalid log sampling |%s|. Expected LEVEL:kept/total.", value));
+  }
+
+  /**
+   * Test if record level is subject to this sampling.
+   *
+   * @param recordLevel log record level.
+   * @return true if record level is sampling level or less severe.
+   */
+  public boolean isSampled(Level recordLevel)
+  {
+    return recordLevel.ordinal() >= level.ordinal();
+  }
+
+  /**
+   * Decide if a record with given level is kept.
+   *
+   * @param recordLevel log record level.
+   * @return true if record is kept.
+   */
+  public boolean keep(Level recordLevel)
+  {
+    return !isSampled(recordLevel) || ThreadLocalRandom.current().nextInt(total) < kept;
+  }
+
+  /**
+   * Get the probability a sampled record is kept.
+   *
+   * @return sampling rate, in (0, 1] range.
+   */
+  public double getRate()
+  {
+    return rate;
+  }
+}
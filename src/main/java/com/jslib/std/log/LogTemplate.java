@@ -0,0 +1,149 @@
+package com.jslib.std.log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Log message compiled into a list of segments, so that message scanning is done once per message constant and not on
+ * every log record. Compiled template is immutable and can be shared between threads.
+ * <p>
+ * Segments mirror log message syntax:
+ * <ul>
+ * <li>{@link #LITERAL} - plain text copied as it is,
+ * <li>{@link #PARAMETER} - parameter enclosed in curly braces, named or anonymous if name is empty,
+ * <li>{@link #EXTRA} - parameter with name enclosed in double underscores, e.g. <code>{__message_extra__}</code>, whose
+ * argument is the message extra; it ends the message,
+ * <li>{@link #OPEN} - opening curly brace of a parameter not closed before message end or printf tail,
+ * <li>{@link #PRINTF} - message tail starting with first percent character, formatted printf style with all arguments;
+ * tail is compiled too, see {@link #printf()}.
+ * </ul>
+ */
+final class LogTemplate
+{
+  public static final int LITERAL = 0;
+  public static final int PARAMETER = 1;
+  public static final int EXTRA = 2;
+  public static final int OPEN = 3;
+  public static final int PRINTF = 4;
+
+  private final int[] types;
+  private final String[] texts;
+  /** Compiled printf tail or null if message has no printf tail. */
+  private final PrintfFormat printf;
+
+  private LogTemplate(List<Integer> types, List<String> texts, PrintfFormat printf)
+  {
+    this.types = new int[types.size()];
+    for(int i = 0; i < this.types.length; ++i) {
+      this.types[i] = types.get(i);
+    }
+    this.texts = texts.toArray(new String[0]);
+    this.printf = printf;
+  }
+
+  public int size()
+  {
+    return types.length;
+  }
+
+  public int type(int index)
+  {
+    return types[index];
+  }
+
+  /**
+   * Get segment text: literal text, parameter name or printf tail. For {@link #OPEN} segment returns empty string.
+   *
+   * @param index segment index.
+   * @return segment text.
+   */
+  public String text(int index)
+  {
+    return texts[index];
+  }
+
+  /**
+   * Get compiled printf tail, that is, the text of {@link #PRINTF} segment.
+   *
+   * @return compiled printf tail or null if message has no printf tail.
+   */
+  public PrintfFormat printf()
+  {
+    return printf;
+  }
+
+  /**
+   * Compile log message into template segments. This method implements the same state machine used for log message
+   * parsing: parameters are enclosed in curly braces and first percent character starts printf tail, even if inside a
+   * parameter.
+   *
+   * @param message log message.
+   * @return compiled template.
+   */
+  public static LogTemplate compile(String message)
+  {
+    List<Integer> types = new ArrayList<>();
+    List<String> texts = new ArrayList<>();
+
+    StringBuilder literalBuilder = new StringBuilder();
+    StringBuilder parameterBuilder = new StringBuilder();
+
+    // flag true while state machine is inside parameter, detected by '{' and lasting till '}'
+    boolean parameter = false;
+
+    for(int i = 0; i < message.length(); ++i) {
+      char c = message.charAt(i);
+
+      if(c == '%') {
+        addLiteral(types, texts, literalBuilder);
+        if(parameter) {
+          add(types, texts, OPEN, "");
+          parameter = false;
+        }
+        String tail = message.substring(i);
+        add(types, texts, PRINTF, tail);
+        return new LogTemplate(types, texts, PrintfFormat.compile(tail));
+      }
+
+      if(parameter) {
+        if(c == '}') {
+          parameter = false;
+          String parameterName = parameterBuilder.toString();
+          add(types, texts, parameterName.startsWith("__") && parameterName.endsWith("__") ? EXTRA : PARAMETER, parameterName);
+          continue;
+        }
+        parameterBuilder.append(c);
+        continue;
+      }
+
+      if(c == '{') {
+        addLiteral(types, texts, literalBuilder);
+        parameter = true;
+        parameterBuilder.setLength(0);
+        continue;
+      }
+
+      literalBuilder.append(c);
+    }
+
+    addLiteral(types, texts, literalBuilder);
+    if(parameter) {
+      add(types, texts, OPEN, "");
+    }
+    return new LogTemplate(types, texts, null);
+  }
+
+  private static void addLiteral(List<Integer> types, List<String> texts, StringBuilder literalBuilder)
+  {
+    if(literalBuilder.length() > 0) {
+      add(types, texts, LITERAL, literalBuilder.toString());
+      literalBuilder.setLength(0);
+    }
+  }
+
+  private static void add(List<Integer> types, List<String> texts, int type, String text)
+  {
+    types.add(type);
+    texts.add(text);
+  }
+}
@@ -0,0 +1,112 @@
+package com.jslib.std.log;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Logger patterns compiled into a prefix trie with dot separated segments as keys. Logger pattern matches logger names
+ * equal to pattern or starting with pattern followed by dot, e.g. <code>com.foo</code> matches <code>com.foo</code> and
+ * <code>com.foo.Bar</code> but not <code>com.foobar</code>. When more patterns match, the longest one wins; if none
+ * matches, root value is used.
+ * <p>
+ * Lookup cost is proportional with the number of logger name segments, not with the number of patterns, and resolved
+ * values are memoized per logger name. Trie is immutable; on configuration changes a new trie is created and swapped.
+ *
+ * @param <T> value type.
+ */
+final class LoggerTrie<T>
+{
+  /** Maximum number of memoized logger names; after this limit is reached values are resolved, but not memoized. */
+  private static final int MAX_CACHE_SIZE = 16384;
+  /** Memoized value for patterns with null value, since concurrent hash map does not accept null values. */
+  private static final Object NULL = new Object();
+
+  private final Node<T> root;
+  private final Map<String, Object> cache;
+
+  /**
+   * Compile logger patterns.
+   *
+   * @param rootValue value for logger names not matching any pattern, possible null,
+   * @param patterns logger patterns mapped to their values.
+   */
+  public LoggerTrie(T rootValue, Map<String, T> patterns)
+  {
+    this.root = new Node<>();
+    this.root.value = rootValue;
+    this.root.valueSet = true;
+    this.cache = new ConcurrentHashMap<>();
+
+    patterns.forEach((pattern, value) -> {
+      Node<T> node = root;
+      for(String segment : pattern.split("\\.")) {
+        if(!segment.isEmpty()) {
+          node = node.children.computeIfAbsent(segment, key -> new Node<>());
+        }
+      }
+      node.value = value;
+      node.valueSet = true;
+    });
+  }
+
+  public T getRootValue()
+  {
+    return root.value;
+  }
+
+  /**
+   * Get value of the longest pattern matching logger name or root value if no pattern matches.
+   *
+   * @param loggerName logger name.
+   * @return logger value, possible null if configured so.
+   */
+  @SuppressWarnings("unchecked")
+  public T get(String loggerName)
+  {
+    Object value = cache.get(loggerName);
+    if(value == null) {
+      value = resolve(loggerName);
+      if(value == null) {
+        value = NULL;
+      }
+      if(cache.size() < MAX_CACHE_SIZE) {
+        cache.put(loggerName, value);
+      }
+    }
+    return value == NULL ? null : (T)value;
+  }
+
+  private T resolve(String loggerName)
+  {
+    T value = root.value;
+    Node<T> node = root;
+
+    int start = 0;
+    while(start <= loggerName.length()) {
+      int end = loggerName.indexOf('.', start);
+      if(end == -1) {
+        end = loggerName.length();
+      }
+      if(end > start) {
+        node = node.children.get(loggerName.substring(start, end));
+        if(node == null) {
+          break;
+        }
+        if(node.valueSet) {
+          value = node.value;
+        }
+      }
+      start = end + 1;
+    }
+    return value;
+  }
+
+  private static class Node<T>
+  {
+    final Map<String, Node<T>> children = new HashMap<>();
+    T value;
+    /** Flag true if node is the last segment of a pattern, in which case value is meaningful, even if null. */
+    boolean valueSet;
+  }
+}
@@ -0,0 +1,23 @@
+package com.jslib.std.log;
+
+/**
+ * Action taken by {@link RecordQueue} when a log record is written while the queue is full.
+ * <p>
+ * Policy applies only to records queue, between application threads and sender thread. Sink queues never block sender
+ * thread: a sink falling behind drops whole batches, for that sink only, counted on sink drop counters, see
+ * {@link Sink}.
+ */
+enum OverflowPolicy
+{
+  /**
+   * Writer thread waits for free space; no record is lost from records queue but application threads are throttled to
+   * sender speed. Records can still be dropped by a full sink queue.
+   */
+  BLOCK,
+  /** Discard the record being written and keep already enqueued ones. */
+  DROP_NEWEST,
+  /** Discard the oldest enqueued record to make room for the one being written. */
+  DROP_OLDEST,
+  /** Discard the record being written if its level is less severe than configured overflow level, otherwise block. */
+  DROP_BELOW_LEVEL
+}
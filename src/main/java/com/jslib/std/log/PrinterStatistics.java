@@ -0,0 +1,125 @@
+package com.jslib.std.log;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput and loss counters for log printer. Counters are updated by sender thread, by sinks workers and, for
+ * records failing on writer side, by application threads, and can be read from any thread. Per sink drop counters are
+ * kept by sinks, see {@link Sink}.
+ */
+public class PrinterStatistics
+{
+  private final long startTimestamp;
+
+  private final AtomicLong processedRecords;
+  private final AtomicLong failedRecords;
+  private final AtomicLong batches;
+  private final AtomicLong encodedBytes;
+  private final AtomicLong sentDatagrams;
+  private final AtomicLong sendFailures;
+  private final AtomicLong droppedTransactionRecords;
+
+  public PrinterStatistics()
+  {
+    this.startTimestamp = System.currentTimeMillis();
+
+    this.processedRecords = new AtomicLong();
+    this.failedRecords = new AtomicLong();
+    this.batches = new AtomicLong();
+    this.encodedBytes = new AtomicLong();
+    this.sentDatagrams = new AtomicLong();
+    this.sendFailures = new AtomicLong();
+    this.droppedTransactionRecords = new AtomicLong();
+  }
+
+  void onBatch(int recordsCount, int bytesCount)
+  {
+    batches.incrementAndGet();
+    processedRecords.addAndGet(recordsCount);
+    encodedBytes.addAndGet(bytesCount);
+  }
+
+  void onFailedRecord()
+  {
+    failedRecords.incrementAndGet();
+  }
+
+  void onSentDatagrams(int datagramsCount)
+  {
+    sentDatagrams.addAndGet(datagramsCount);
+  }
+
+  void onSendFailure()
+  {
+    sendFailures.incrementAndGet();
+  }
+
+  void onDroppedTransactionRecord()
+  {
+    droppedTransactionRecords.incrementAndGet();
+  }
+
+  public long getProcessedRecords()
+  {
+    return processedRecords.get();
+  }
+
+  public long getFailedRecords()
+  {
+    return failedRecords.get();
+  }
+
+  public long getBatches()
+  {
+    return batches.get();
+  }
+
+  public long getEncodedBytes()
+  {
+    return encodedBytes.get();
+  }
+
+  public long getSentDatagrams()
+  {
+    return sentDatagrams.get();
+  }
+
+  public long getSendFailures()
+  {
+    return sendFailures.get();
+  }
+
+  /**
+   * Get the number of records discarded because transaction buffer limits were exceeded.
+   *
+   * @return dropped transaction records.
+   */
+  public long getDroppedTransactionRecords()
+  {
+    return droppedTransactionRecords.get();
+  }
+
+  public double getAverageBatchSize()
+  {
+    long batches = this.batches.get();
+    return batches != 0 ? processedRecords.get() / (double)batches : 0;
+  }
+
+  /**
+   * Get average number of records processed per second since log printer start.
+   *
+   * @return records per second.
+   */
+  public double getThroughput()
+  {
+    long elapsedMillis = Math.max(1, System.currentTimeMillis() - startTimestamp);
+    return processedRecords.get() * 1000D / elapsedMillis;
+  }
+
+  public String toString(long droppedRecords)
+  {
+    return String.format(Locale.ENGLISH, "Processed %d records in %d batches (%.1f records/batch, %.1f records/s), %d bytes. Dropped %d, dropped from transactions %d, failed %d records. Sent %d datagrams, %d send failures.", //
+        processedRecords.get(), batches.get(), getAverageBatchSize(), getThroughput(), encodedBytes.get(), droppedRecords, droppedTransactionRecords.get(), failedRecords.get(), sentDatagrams.get(), sendFailures.get());
+  }
+}
@@ -0,0 +1,343 @@
+package com.jslib.std.log;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Formattable;
+import java.util.IllegalFormatException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Printf style format compiled once and rendered without {@link java.util.Formatter}. Supports the specifiers commonly
+ * used on log messages: <code>%s</code>, <code>%d</code>, <code>%x</code>, <code>%f</code> with optional precision,
+ * <code>%%</code> and <code>%n</code>. Format with any other specifier, flags, width or argument index is delegated to
+ * {@link String#format(String, Object...)}, the same as arguments that standard formatter handles in a special way,
+ * e.g. {@link Formattable} or non finite numbers.
+ * <p>
+ * Rendered output is the same as <code>String.format</code> with default locale. If default locale uses other zero
+ * digit, decimal separator or minus sign than ASCII ones numbers are delegated to standard formatter too. When format
+ * and arguments does not match, e.g. missing argument or conversion not applicable to argument type, original format
+ * is rendered, as standard formatter would throw {@link IllegalFormatException}.
+ * <p>
+ * Compiled format is immutable and can be shared between threads.
+ */
+final class PrintfFormat
+{
+  private static final int LITERAL = 0;
+  private static final int STRING = 1;
+  private static final int DECIMAL = 2;
+  private static final int HEX = 3;
+  private static final int FLOAT = 4;
+
+  /** Argument append results. */
+  private static final int APPENDED = 0;
+  private static final int STANDARD = 1;
+  private static final int INVALID = 2;
+
+  /** Default precision for floating point specifier, when precision is missing. */
+  private static final int DEF_PRECISION = 6;
+  /** Larger precision is not supported by fast path in order to avoid integer overflow while parsing. */
+  private static final int MAX_PRECISION_DIGITS = 4;
+
+  /** Default locale symbols, cached for last seen default locale. */
+  private static volatile LocaleSymbols localeSymbols;
+
+  private final String pattern;
+  /** True if format has specifiers not supported by fast path and is delegated to standard formatter. */
+  private final boolean standard;
+  private final int[] types;
+  private final String[] texts;
+  private final int[] precisions;
+
+  private PrintfFormat(String pattern, boolean standard, List<Integer> types, List<String> texts, List<Integer> precisions)
+  {
+    this.pattern = pattern;
+    this.standard = standard;
+    this.types = new int[types.size()];
+    this.precisions = new int[precisions.size()];
+    for(int i = 0; i < this.types.length; ++i) {
+      this.types[i] = types.get(i);
+      this.precisions[i] = precisions.get(i);
+    }
+    this.texts = texts.toArray(new String[0]);
+  }
+
+  public String pattern()
+  {
+    return pattern;
+  }
+
+  public boolean isStandard()
+  {
+    return standard;
+  }
+
+  /**
+   * Append formatted arguments to string builder or original format if arguments does not match format specifiers.
+   * This method does not throw format exceptions; still, exception thrown by argument string conversion is propagated.
+   *
+   * @param builder string builder to append to,
+   * @param args format arguments.
+   */
+  public void formatTo(StringBuilder builder, Object... args)
+  {
+    if(standard) {
+      formatStandard(builder, args);
+      return;
+    }
+
+    int start = builder.length();
+    for(int i = 0, argumentIndex = 0; i < types.length; ++i) {
+      if(types[i] == LITERAL) {
+        builder.append(texts[i]);
+        continue;
+      }
+
+      if(argumentIndex >= args.length) {
+        // missing argument
+        builder.setLength(start);
+        builder.append(pattern);
+        return;
+      }
+      Object arg = args[argumentIndex++];
+      if(arg == null) {
+        // standard formatter applies precision to null string too
+        builder.append("null", 0, types[i] == FLOAT ? Math.min(4, precisions[i]) : 4);
+        continue;
+      }
+
+      int result = append(builder, types[i], precisions[i], arg);
+      if(result != APPENDED) {
+        builder.setLength(start);
+        if(result == STANDARD) {
+          formatStandard(builder, args);
+        }
+        else {
+          builder.append(pattern);
+        }
+        return;
+      }
+    }
+  }
+
+  public String format(Object... args)
+  {
+    StringBuilder builder = new StringBuilder(pattern.length() + 16);
+    formatTo(builder, args);
+    return builder.toString();
+  }
+
+  /**
+   * Append not null argument formatted accordingly its specifier.
+   *
+   * @param builder string builder,
+   * @param type specifier type,
+   * @param precision precision for floating point specifier,
+   * @param arg not null argument.
+   * @return {@link #APPENDED} on success, {@link #STANDARD} if argument should be formatted by standard formatter or
+   *         {@link #INVALID} if argument type is not compatible with specifier.
+   */
+  private static int append(StringBuilder builder, int type, int precision, Object arg)
+  {
+    switch(type) {
+    case STRING:
+      if(arg instanceof Formattable) {
+        return STANDARD;
+      }
+      builder.append(arg.toString());
+      return APPENDED;
+
+    case DECIMAL:
+      if(!(arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte || arg instanceof BigInteger)) {
+        return INVALID;
+      }
+      if(!isPlainLocale()) {
+        return STANDARD;
+      }
+      builder.append(arg.toString());
+      return APPENDED;
+
+    case HEX:
+      if(arg instanceof Integer) {
+        builder.append(Integer.toHexString((Integer)arg));
+      }
+      else if(arg instanceof Long) {
+        builder.append(Long.toHexString((Long)arg));
+      }
+      else if(arg instanceof Short) {
+        builder.append(Integer.toHexString((Short)arg & 0xFFFF));
+      }
+      else if(arg instanceof Byte) {
+        builder.append(Integer.toHexString((Byte)arg & 0xFF));
+      }
+      else if(arg instanceof BigInteger) {
+        builder.append(((BigInteger)arg).toString(16));
+      }
+      else {
+        return INVALID;
+      }
+      return APPENDED;
+
+    case FLOAT:
+      if(arg instanceof BigDecimal) {
+        return STANDARD;
+      }
+      if(!(arg instanceof Double || arg instanceof Float)) {
+        return INVALID;
+      }
+      double value = ((Number)arg).doubleValue();
+      if(Double.isNaN(value) || Double.isInfinite(value) || !isPlainLocale()) {
+        return STANDARD;
+      }
+      // standard formatter rounds half up the shortest decimal representation, that is, the one from Double#toString
+      if(Double.compare(value, 0.0) < 0) {
+        builder.append('-');
+      }
+      builder.append(new BigDecimal(Double.toString(Math.abs(value))).setScale(precision, RoundingMode.HALF_UP).toPlainString());
+      return APPENDED;
+
+    default:
+      throw new IllegalStateException();
+    }
+  }
+
+  private void formatStandard(StringBuilder builder, Object... args)
+  {
+    try {
+      builder.append(String.format(pattern, args));
+    }
+    catch(IllegalFormatException unused) {
+      // return unformatted message if format fails
+      builder.append(pattern);
+    }
+  }
+
+  /**
+   * Test if default format locale uses ASCII zero digit, dot decimal separator and hyphen minus sign, in which case
+   * numbers formatted by fast path are the same as standard formatter ones.
+   *
+   * @return true if default locale numbers are plain ASCII.
+   */
+  private static boolean isPlainLocale()
+  {
+    Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+    LocaleSymbols symbols = localeSymbols;
+    if(symbols == null || symbols.locale != locale) {
+      symbols = new LocaleSymbols(locale);
+      localeSymbols = symbols;
+    }
+    return symbols.plain;
+  }
+
+  private static final class LocaleSymbols
+  {
+    final Locale locale;
+    final boolean plain;
+
+    LocaleSymbols(Locale locale)
+    {
+      this.locale = locale;
+      DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+      this.plain = symbols.getZeroDigit() == '0' && symbols.getDecimalSeparator() == '.' && symbols.getMinusSign() == '-';
+    }
+  }
+
+  /**
+   * Compile printf format. If format contains specifiers not supported by fast path returned instance delegates to
+   * standard formatter.
+   *
+   * @param pattern printf format.
+   * @return compiled format.
+   */
+  public static PrintfFormat compile(String pattern)
+  {
+    List<Integer> types = new ArrayList<>();
+    List<String> texts = new ArrayList<>();
+    List<Integer> precisions = new ArrayList<>();
+    StringBuilder literalBuilder = new StringBuilder();
+
+    for(int i = 0; i < pattern.length(); ++i) {
+      char c = pattern.charAt(i);
+      if(c != '%') {
+        literalBuilder.append(c);
+        continue;
+      }
+
+      if(++i == pattern.length()) {
+        return standard(pattern);
+      }
+      c = pattern.charAt(i);
+
+      int precision = -1;
+      if(c == '.') {
+        int precisionStart = ++i;
+        while(i < pattern.length() && Character.isDigit(pattern.charAt(i))) {
+          ++i;
+        }
+        int precisionDigits = i - precisionStart;
+        if(precisionDigits == 0 || precisionDigits > MAX_PRECISION_DIGITS || i == pattern.length() || pattern.charAt(i) != 'f') {
+          return standard(pattern);
+        }
+        precision = Integer.parseInt(pattern.substring(precisionStart, i));
+        c = 'f';
+      }
+
+      int type;
+      switch(c) {
+      case '%':
+        literalBuilder.append('%');
+        continue;
+
+      case 'n':
+        literalBuilder.append(System.lineSeparator());
+        continue;
+
+      case 's':
+        type = STRING;
+        break;
+
+      case 'd':
+        type = DECIMAL;
+        break;
+
+      case 'x':
+        type = HEX;
+        break;
+
+      case 'f':
+        type = FLOAT;
+        break;
+
+      default:
+        return standard(pattern);
+      }
+
+      if(literalBuilder.length() > 0) {
+        add(types, texts, precisions, LITERAL, literalBuilder.toString(), 0);
+        literalBuilder.setLength(0);
+      }
+      add(types, texts, precisions, type, null, precision >= 0 ? precision : DEF_PRECISION);
+    }
+
+    if(literalBuilder.length() > 0) {
+      add(types, texts, precisions, LITERAL, literalBuilder.toString(), 0);
+    }
+    return new PrintfFormat(pattern, false, types, texts, precisions);
+  }
+
+  private static PrintfFormat standard(String pattern)
+  {
+    List<Integer> empty = new ArrayList<>();
+    return new PrintfFormat(pattern, true, empty, new ArrayList<>(), empty);
+  }
+
+  private static void add(List<Integer> types, List<String> texts, List<Integer> precisions, int type, String text, int precision)
+  {
+    types.add(type);
+    texts.add(text);
+    precisions.add(precision);
+  }
+}
@@ -0,0 +1,185 @@
+package com.jslib.std.log;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per message template rate limiting. A template is identified by logger name and message constant, so that a single
+ * call site emitting the same message in a loop is limited without affecting other messages. Limits are configured per
+ * logger pattern, see {@link Rate}; loggers without a matching pattern are not limited.
+ * <p>
+ * Every template has a bucket implementing generic cell rate algorithm: bucket keeps the theoretical arrival time of
+ * next record, advanced by emission interval for every accepted record, and a record is rejected if accepting it would
+ * move arrival time more than limit period ahead. This is equivalent with a token bucket with capacity equal to permits
+ * count refilled at permits per period rate, but needs a single atomic value.
+ * <p>
+ * Rejected records are counted per template and reported periodically, and on close, to summary listener with the
+ * number of suppressed records since the previous report.
+ */
+class RateLimiter
+{
+  /** Maximum number of limited templates per logger, to bound memory if message is not constant. */
+  private static final int MAX_TEMPLATES = 1024;
+
+  private final LoggerTrie<Rate> rates;
+  private final SummaryListener listener;
+  /** Templates buckets, mapped by logger name then by message. Two levels map avoids key allocation on lookup. */
+  private final Map<String, Map<String, Bucket>> buckets;
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Create rate limiter and start periodic summary reports.
+   *
+   * @param rates rate limits compiled by logger patterns,
+   * @param summaryPeriod suppressed records summary period, in seconds,
+   * @param listener suppressed records summary listener.
+   */
+  public RateLimiter(LoggerTrie<Rate> rates, int summaryPeriod, SummaryListener listener)
+  {
+    this.rates = rates;
+    this.listener = listener;
+    this.buckets = new ConcurrentHashMap<>();
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "std-log-rate-summary");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.scheduler.scheduleAtFixedRate(this::report, summaryPeriod, summaryPeriod, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Test if a record with given message can be written by logger now. Returns true if logger is not limited.
+   *
+   * @param loggerName logger name,
+   * @param message message constant, as given to logger.
+   * @return true if record is accepted or false if it should be suppressed.
+   */
+  public boolean acquire(String loggerName, String message)
+  {
+    Rate rate = rates.get(loggerName);
+    if(rate == null || message == null) {
+      return true;
+    }
+
+    Map<String, Bucket> templates = buckets.get(loggerName);
+    if(templates == null) {
+      templates = buckets.computeIfAbsent(loggerName, name -> new ConcurrentHashMap<>());
+    }
+    Bucket bucket = templates.get(message);
+    if(bucket == null) {
+      if(templates.size() >= MAX_TEMPLATES) {
+        return true;
+      }
+      bucket = templates.computeIfAbsent(message, key -> new Bucket(loggerName, message, rate));
+    }
+    return bucket.acquire(System.nanoTime());
+  }
+
+  /** Report suppressed records count for every template with suppressed records since previous report. */
+  void report()
+  {
+    for(Map<String, Bucket> templates : buckets.values()) {
+      for(Bucket bucket : templates.values()) {
+        long suppressedCount = bucket.suppressed.getAndSet(0);
+        if(suppressedCount > 0) {
+          listener.onSuppressed(bucket.loggerName, bucket.message, suppressedCount);
+        }
+      }
+    }
+  }
+
+  /** Stop periodic reports and report suppressed records not yet reported. */
+  public void close()
+  {
+    scheduler.shutdownNow();
+    report();
+  }
+
+  /**
+   * Rate limit configured by logger pattern, with format <code>permits/seconds</code>, e.g. <code>100/60</code> allows
+   * at most 100 records per minute for every message template.
+   */
+  static final class Rate
+  {
+    final int permits;
+    final long periodNanos;
+
+    Rate(int permits, long periodNanos)
+    {
+      this.permits = permits;
+      this.periodNanos = periodNanos;
+    }
+
+    /**
+     * Parse rate limit from its string representation.
+     *
+     * @param value rate limit with format <code>permits/seconds</code>.
+     * @return rate limit.
+     * @throws IllegalArgumentException if value is not a valid rate limit.
+     */
+    static Rate parse(String value)
+    {
+      int separatorIndex = value.indexOf('/');
+      if(separatorIndex == -1) {
+        throw new IllegalArgumentException(String.format("Invalid rate limit |%s|. Expected permits/seconds.", value));
+      }
+      try {
+        int permits = Integer.parseInt(value.substring(0, separatorIndex).trim());
+        int seconds = Integer.parseInt(value.substring(separatorIndex + 1).trim());
+        if(permits > 0 && seconds > 0) {
+          return new Rate(permits, TimeUnit.SECONDS.toNanos(seconds));
+        }
+      }
+      catch(NumberFormatException ignore) {}
+      throw new IllegalArgumentException(String.format("Invalid rate limit |%s|. Expected positive permits/seconds.", value));
+    }
+  }
+
+  private static final class Bucket
+  {
+    final String loggerName;
+    final String message;
+    /** Nanoseconds between records at sustained rate. */
+    final long interval;
+    /** Maximum advance of theoretical arrival time over current time, that is, rate period. */
+    final long tolerance;
+    /** Theoretical arrival time, in system nano time, of next record. */
+    final AtomicLong arrival;
+    final AtomicLong suppressed;
+
+    Bucket(String loggerName, String message, Rate rate)
+    {
+      this.loggerName = loggerName;
+      this.message = message;
+      this.interval = Math.max(1, rate.periodNanos / rate.permits);
+      this.tolerance = rate.periodNanos;
+      this.arrival = new AtomicLong(System.nanoTime());
+      this.suppressed = new AtomicLong();
+    }
+
+    boolean acquire(long now)
+    {
+      for(;;) {
+        long current = arrival.get();
+        long next = (current - now > 0 ? current : now) + interval;
+        if(next - now > tolerance) {
+          suppressed.incrementAndGet();
+          return false;
+        }
+        if(arrival.compareAndSet(current, next)) {
+          return true;
+        }
+      }
+    }
+  }
+
+  @FunctionalInterface
+  interface SummaryListener
+  {
+    void onSuppressed(String loggerName, String message, long suppressedCount);
+  }
+}
@@ -0,0 +1,348 @@
+package com.jslib.std.log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import com.jslib.api.log.Level;
+
+/**
+ * Bounded, lock-free ring buffer used as hand-off between application threads writing log records and the sender
+ * thread. Slots array is allocated once at construction so that producer cost does not depend on queue load and memory
+ * usage is predictable.
+ * <p>
+ * Implementation is the classic array queue with per slot sequence numbers: a producer claims a slot by advancing tail
+ * index with CAS and publishes the record by updating slot sequence; consumer does the same on head index. Although
+ * designed for multiple producers and a single consumer, head index is also updated with CAS since
+ * {@link OverflowPolicy#DROP_OLDEST} makes producers remove records too.
+ * <p>
+ * Consumer waiting for records is parked and producers unpark it only if it is actually waiting, so that on a busy
+ * queue there is no signaling cost.
+ */
+class RecordQueue
+{
+  /** Producers waiting for free space, on {@link OverflowPolicy#BLOCK}, spin this many times before parking. */
+  private static final int SPIN_TRIES = 64;
+  /** Nanoseconds for producer to park while waiting for free space. */
+  private static final long PRODUCER_PARK_NANOS = 100000L;
+
+  private final int capacity;
+  private final int mask;
+  private final GelfRecord[] records;
+  private final AtomicLongArray sequences;
+
+  /** Next position to be read by consumer. */
+  private final AtomicLong head;
+  /** Next position to be written by producers. */
+  private final AtomicLong tail;
+
+  private final OverflowPolicy overflowPolicy;
+  /** Records less severe than this level are dropped on {@link OverflowPolicy#DROP_BELOW_LEVEL}. */
+  private final Level overflowLevel;
+  /** Count of records discarded because of queue overflow. */
+  private final AtomicLong droppedCount;
+
+  /** Consumer thread currently parked waiting for records, null if consumer is running. */
+  private volatile Thread waitingConsumer;
+
+  /**
+   * Create ring buffer with capacity rounded up to next power of two. Minimum capacity is 2 since sequence numbers of a
+   * single slot could not distinguish between full and empty states.
+   *
+   * @param capacity requested queue capacity,
+   * @param overflowPolicy action to take when queue is full,
+   * @param overflowLevel level threshold used only by {@link OverflowPolicy#DROP_BELOW_LEVEL}.
+   */
+  public RecordQueue(int capacity, OverflowPolicy overflowPolicy, Level overflowLevel)
+  {
+    int size = 2;
+    while(size < capacity) {
+      size <<= 1;
+    }
+    this.capacity = size;
+    this.mask = size - 1;
+    this.records = new GelfRecord[size];
+    this.sequences = new AtomicLongArray(size);
+    for(int i = 0; i < size; ++i) {
+      this.sequences.set(i, i);
+    }
+
+    this.head = new AtomicLong();
+    this.tail = new AtomicLong();
+
+    this.overflowPolicy = overflowPolicy;
+    this.overflowLevel = overflowLevel;
+    this.droppedCount = new AtomicLong();
+  }
+
+  public int getCapacity()
+  {
+    return capacity;
+  }
+
+  public long getDroppedCount()
+  {
+    return droppedCount.get();
+  }
+
+  /**
+   * Enqueue log record applying configured overflow policy if queue is full. Depending on policy this method can block
+   * current thread till sender makes room or can silently discard a record, in which case dropped counter is updated.
+   *
+   * @param record log record to enqueue,
+   * @param level logger level for record, used by {@link OverflowPolicy#DROP_BELOW_LEVEL}.
+   */
+  public void put(GelfRecord record, Level level)
+  {
+    if(offer(record)) {
+      return;
+    }
+
+    switch(overflowPolicy) {
+    case DROP_NEWEST:
+      droppedCount.incrementAndGet();
+      return;
+
+    case DROP_OLDEST:
+      while(!offer(record)) {
+        if(poll() != null) {
+          droppedCount.incrementAndGet();
+        }
+      }
+      return;
+
+    case DROP_BELOW_LEVEL:
+      if(level.ordinal() > overflowLevel.ordinal()) {
+        droppedCount.incrementAndGet();
+        return;
+      }
+      // fall through to blocking for records at or above overflow level
+
+    default:
+      for(int tries = 0; !offer(record); ++tries) {
+        if(tries < SPIN_TRIES) {
+          Thread.yield();
+        }
+        else {
+          LockSupport.parkNanos(this, PRODUCER_PARK_NANOS);
+        }
+      }
+    }
+  }
+
+  /**
+   * Enqueue records from given array as a batch, claiming as many free slots as available with a single tail update.
+   * Records that do not find room are enqueued one by one, applying overflow policy with record own level.
+   *
+   * @param records source array,
+   * @param offset index of first record to enqueue,
+   * @param count number of records to enqueue.
+   */
+  public void putAll(GelfRecord[] records, int offset, int count)
+  {
+    int end = offset + count;
+    while(offset < end) {
+      int claimed = offerAll(records, offset, end - offset);
+      if(claimed == 0) {
+        put(records[offset], records[offset].getLogLevel());
+        claimed = 1;
+      }
+      offset += claimed;
+    }
+  }
+
+  /**
+   * Try to enqueue records without blocking, up to available free slots.
+   *
+   * @param records source array,
+   * @param offset index of first record to enqueue,
+   * @param count maximum number of records to enqueue.
+   * @return number of records enqueued, possible 0 if queue is full.
+   */
+  private int offerAll(GelfRecord[] records, int offset, int count)
+  {
+    for(;;) {
+      long position = tail.get();
+      int available = 0;
+      boolean staleTail = false;
+      while(available < count) {
+        long difference = sequences.get((int)(position + available) & mask) - (position + available);
+        if(difference != 0) {
+          // positive difference means slot was claimed by another producer after tail was read
+          staleTail = difference > 0;
+          break;
+        }
+        ++available;
+      }
+
+      if(available == 0) {
+        if(staleTail) {
+          continue;
+        }
+        return 0;
+      }
+      if(tail.compareAndSet(position, position + available)) {
+        for(int i = 0; i < available; ++i) {
+          int index = (int)(position + i) & mask;
+          this.records[index] = records[offset + i];
+          sequences.set(index, position + i + 1);
+        }
+        signalConsumer();
+        return available;
+      }
+    }
+  }
+
+  /**
+   * Try to enqueue log record without blocking.
+   *
+   * @param record log record to enqueue.
+   * @return true if record was enqueued or false if queue is full.
+   */
+  public boolean offer(GelfRecord record)
+  {
+    for(;;) {
+      long position = tail.get();
+      int index = (int)position & mask;
+      long difference = sequences.get(index) - position;
+
+      if(difference == 0) {
+        if(tail.compareAndSet(position, position + 1)) {
+          records[index] = record;
+          sequences.set(index, position + 1);
+          signalConsumer();
+          return true;
+        }
+      }
+      else if(difference < 0) {
+        return false;
+      }
+      // else slot was claimed by another producer; reload tail and retry
+    }
+  }
+
+  /**
+   * Retrieve and remove log record from queue head, returning immediately if queue is empty.
+   *
+   * @return log record or null if queue is empty.
+   */
+  public GelfRecord poll()
+  {
+    for(;;) {
+      long position = head.get();
+      int index = (int)position & mask;
+      long difference = sequences.get(index) - (position + 1);
+
+      if(difference == 0) {
+        if(head.compareAndSet(position, position + 1)) {
+          GelfRecord record = records[index];
+          records[index] = null;
+          sequences.set(index, position + capacity);
+          return record;
+        }
+      }
+      else if(difference < 0) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Retrieve and remove log record from queue head, waiting for one to become available if necessary.
+   *
+   * @return log record, never null.
+   * @throws InterruptedException if current thread is interrupted while waiting.
+   */
+  public GelfRecord take() throws InterruptedException
+  {
+    for(;;) {
+      GelfRecord record = poll(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+      if(record != null) {
+        return record;
+      }
+    }
+  }
+
+  /**
+   * Retrieve and remove log record from queue head, waiting up to given timeout for one to become available.
+   *
+   * @param timeout maximum time to wait,
+   * @param unit timeout units.
+   * @return log record or null if timeout expires.
+   * @throws InterruptedException if current thread is interrupted while waiting.
+   */
+  public GelfRecord poll(long timeout, TimeUnit unit) throws InterruptedException
+  {
+    GelfRecord record = poll();
+    if(record != null) {
+      return record;
+    }
+
+    long remainingNanos = unit.toNanos(timeout);
+    long deadline = System.nanoTime() + remainingNanos;
+    for(;;) {
+      if(Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+
+      waitingConsumer = Thread.currentThread();
+      // check again after publishing waiting state since producer could enqueue just before
+      record = poll();
+      if(record == null) {
+        LockSupport.parkNanos(this, remainingNanos);
+        record = poll();
+      }
+      waitingConsumer = null;
+
+      if(record != null) {
+        return record;
+      }
+      remainingNanos = deadline - System.nanoTime();
+      if(remainingNanos <= 0) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Move available log records into given array, without waiting, up to requested maximum count. This method is for
+   * consumer thread only.
+   *
+   * @param records destination array,
+   * @param offset index in destination array where to store first record,
+   * @param maxCount maximum number of records to move.
+   * @return number of records actually moved, possible 0.
+   */
+  public int drainTo(GelfRecord[] records, int offset, int maxCount)
+  {
+    int count = 0;
+    while(count < maxCount) {
+      GelfRecord record = poll();
+      if(record == null) {
+        break;
+      }
+      records[offset + count++] = record;
+    }
+    return count;
+  }
+
+  public boolean isEmpty()
+  {
+    return head.get() >= tail.get();
+  }
+
+  public int size()
+  {
+    long size = tail.get() - head.get();
+    return size < 0 ? 0 : (int)Math.min(size, capacity);
+  }
+
+  private void signalConsumer()
+  {
+    Thread consumer = waitingConsumer;
+    if(consumer != null) {
+      LockSupport.unpark(consumer);
+    }
+  }
+}
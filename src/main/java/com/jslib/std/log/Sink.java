@@ -0,0 +1,187 @@
+package com.jslib.std.log;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Log destination with its own bounded queue of encoded batches and its own worker thread, so that a slow destination
+ * does not delay the others. When sink queue is full, batch is dropped for this sink only and counted on sink drop
+ * counters; sender thread is never blocked by a sink.
+ * <p>
+ * Subclasses implement actual batch writing, see {@link #write(EncodedBatch)}, that is invoked only from sink worker
+ * thread.
+ */
+abstract class Sink implements Runnable
+{
+  /** Milliseconds to wait for sink worker to write already enqueued batches on close. */
+  private static final int CLOSE_TIMEOUT = 4000;
+
+  private final String name;
+  private final BlockingQueue<EncodedBatch> queue;
+  private final Thread worker;
+  private volatile boolean running;
+
+  private final AtomicLong writtenRecords;
+  private final AtomicLong droppedRecords;
+  private final AtomicLong droppedBatches;
+  private final AtomicLong failures;
+  private volatile boolean healthy;
+
+  protected Sink(String name, int queueCapacity)
+  {
+    this.name = name;
+    this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+    this.writtenRecords = new AtomicLong();
+    this.droppedRecords = new AtomicLong();
+    this.droppedBatches = new AtomicLong();
+    this.failures = new AtomicLong();
+    this.healthy = true;
+
+    this.running = true;
+    this.worker = new Thread(this, "std-log-sink-" + name);
+    this.worker.setDaemon(true);
+  }
+
+  /** Start sink worker thread. */
+  public void start()
+  {
+    worker.start();
+  }
+
+  public String getName()
+  {
+    return name;
+  }
+
+  /**
+   * Enqueue batch for writing, without blocking. If sink queue is full batch is released and counted as dropped.
+   *
+   * @param batch encoded batch, with a reference owned by this sink.
+   */
+  public void offer(EncodedBatch batch)
+  {
+    if(!queue.offer(batch)) {
+      droppedBatches.incrementAndGet();
+      droppedRecords.addAndGet(batch.count());
+      batch.release();
+    }
+  }
+
+  @Override
+  public void run()
+  {
+    while(running || !queue.isEmpty()) {
+      EncodedBatch batch;
+      try {
+        batch = queue.poll(100, TimeUnit.MILLISECONDS);
+      }
+      catch(InterruptedException e) {
+        continue;
+      }
+      if(batch == null) {
+        try {
+          idle();
+        }
+        catch(Throwable t) {
+          failures.incrementAndGet();
+          if(healthy) {
+            System.err.printf("Sink %s fails on idle maintenance. Root cause: %s: %s%n", name, t.getClass().getCanonicalName(), t.getMessage());
+          }
+          healthy = false;
+        }
+        continue;
+      }
+
+      try {
+        write(batch);
+        writtenRecords.addAndGet(batch.count());
+        healthy = true;
+      }
+      catch(Throwable t) {
+        failures.incrementAndGet();
+        if(healthy) {
+          // report only first failure from a failures series
+          System.err.printf("Sink %s fails to write batch. Root cause: %s: %s%n", name, t.getClass().getCanonicalName(), t.getMessage());
+        }
+        healthy = false;
+      }
+      finally {
+        batch.release();
+      }
+    }
+    closeSink();
+  }
+
+  /**
+   * Write encoded batch to sink destination. Batch should not be released by this method.
+   *
+   * @param batch encoded batch.
+   * @throws Exception if write fails.
+   */
+  protected abstract void write(EncodedBatch batch) throws Exception;
+
+  /**
+   * Hook for time based maintenance, invoked from worker thread when no batch arrives for about 100 milliseconds.
+   * Default implementation does nothing.
+   *
+   * @throws Exception if maintenance fails.
+   */
+  protected void idle() throws Exception
+  {
+  }
+
+  /** Release sink resources. Invoked from worker thread after all enqueued batches are written. */
+  protected abstract void closeSink();
+
+  /** Stop accepting batches and wait for worker thread to write already enqueued ones, but no longer than a timeout. */
+  public void close()
+  {
+    running = false;
+    try {
+      worker.join(CLOSE_TIMEOUT);
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public long getWrittenRecords()
+  {
+    return writtenRecords.get();
+  }
+
+  public long getDroppedRecords()
+  {
+    return droppedRecords.get();
+  }
+
+  public long getDroppedBatches()
+  {
+    return droppedBatches.get();
+  }
+
+  public long getFailures()
+  {
+    return failures.get();
+  }
+
+  /**
+   * Sink is healthy if last write succeeded.
+   *
+   * @return true if sink is healthy.
+   */
+  public boolean isHealthy()
+  {
+    return healthy;
+  }
+
+  @Override
+  public String toString()
+  {
+    return String.format(Locale.ENGLISH, "Sink %s %s. Written %d records. Dropped %d records in %d batches, %d write failures.", //
+        name, healthy ? "healthy" : "failing", writtenRecords.get(), droppedRecords.get(), droppedBatches.get(), failures.get());
+  }
+}
@@ -0,0 +1,231 @@
+package com.jslib.std.log;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stack trace renderer used by sender thread for dumped exceptions. With default configuration output is the same as
+ * {@link Throwable#printStackTrace()}, including causes, suppressed exceptions and collapsing of frames in common with
+ * enclosing trace into <code>... N more</code>. Rendering can be tuned by:
+ * <ul>
+ * <li>depth - maximum number of frames rendered per exception, remaining frames are reported by count,
+ * <li>filtered packages - frames from classes with these package prefixes are skipped, consecutive skipped frames being
+ * reported by count,
+ * <li>deduplication time to live - a stack trace with the same fingerprint as one rendered in full less than TTL ago is
+ * rendered as exception header and fingerprint reference only.
+ * </ul>
+ * Stack fingerprint is a 64 bits hash of exception classes and stack frames, messages not included, for the whole
+ * causes chain. Renderer is not thread safe; it is owned by sender thread.
+ */
+class StackTraceRenderer
+{
+  /** Maximum number of tracked fingerprints; when reached, expired fingerprints are evicted, or all if none expired. */
+  private static final int MAX_FINGERPRINTS = 1024;
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+
+  private final int depth;
+  private final String[] filteredPackages;
+  private final long dedupTtl;
+  /** Fingerprints of stack traces rendered in full, mapped to system nano time when they expire. */
+  private final Map<Long, Long> fingerprints;
+
+  private final StringBuilder builder;
+  private long lastFingerprint;
+
+  /** Create renderer with output identical to {@link Throwable#printStackTrace()}. */
+  public StackTraceRenderer()
+  {
+    this(0, new String[0], 0);
+  }
+
+  /**
+   * Create stack trace renderer.
+   *
+   * @param depth maximum number of frames per exception, zero for no limit,
+   * @param filteredPackages packages prefixes of skipped frames, possible empty,
+   * @param dedupTtl time, in seconds, a rendered stack trace is not rendered again, zero to disable deduplication.
+   */
+  public StackTraceRenderer(int depth, String[] filteredPackages, int dedupTtl)
+  {
+    this.depth = depth;
+    this.filteredPackages = filteredPackages;
+    this.dedupTtl = TimeUnit.SECONDS.toNanos(dedupTtl);
+    this.fingerprints = new HashMap<>();
+    this.builder = new StringBuilder();
+  }
+
+  /**
+   * Render throwable stack trace, or only its header and fingerprint if the same stack trace was recently rendered.
+   *
+   * @param throwable exception to render.
+   * @return rendered stack trace.
+   */
+  public String render(Throwable throwable)
+  {
+    builder.setLength(0);
+    lastFingerprint = fingerprint(throwable);
+
+    if(dedupTtl > 0 && isRepeated(lastFingerprint)) {
+      builder.append(throwable).append(LINE_SEPARATOR);
+      builder.append("\t... stack trace ").append(fingerprintHex()).append(" already sent").append(LINE_SEPARATOR);
+      return builder.toString();
+    }
+
+    Set<Throwable> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    visited.add(throwable);
+    builder.append(throwable).append(LINE_SEPARATOR);
+    StackTraceElement[] trace = throwable.getStackTrace();
+    appendFrames(trace, trace.length, "");
+
+    for(Throwable suppressed : throwable.getSuppressed()) {
+      appendEnclosed(suppressed, trace, "Suppressed: ", "\t", visited);
+    }
+    Throwable cause = throwable.getCause();
+    if(cause != null) {
+      appendEnclosed(cause, trace, "Caused by: ", "", visited);
+    }
+    return builder.toString();
+  }
+
+  public boolean isDeduplicating()
+  {
+    return dedupTtl > 0;
+  }
+
+  /**
+   * Get fingerprint of last rendered stack trace, as hexadecimal string.
+   *
+   * @return last stack fingerprint.
+   */
+  public String fingerprintHex()
+  {
+    return String.format("%016x", lastFingerprint);
+  }
+
+  private void appendEnclosed(Throwable throwable, StackTraceElement[] enclosingTrace, String caption, String prefix, Set<Throwable> visited)
+  {
+    if(!visited.add(throwable)) {
+      builder.append(prefix).append(caption).append("[CIRCULAR REFERENCE: ").append(throwable).append(']').append(LINE_SEPARATOR);
+      return;
+    }
+
+    StackTraceElement[] trace = throwable.getStackTrace();
+    int m = trace.length - 1;
+    int n = enclosingTrace.length - 1;
+    while(m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+      --m;
+      --n;
+    }
+    int framesInCommon = trace.length - 1 - m;
+
+    builder.append(prefix).append(caption).append(throwable).append(LINE_SEPARATOR);
+    appendFrames(trace, m + 1, prefix);
+    if(framesInCommon != 0) {
+      builder.append(prefix).append("\t... ").append(framesInCommon).append(" more").append(LINE_SEPARATOR);
+    }
+
+    for(Throwable suppressed : throwable.getSuppressed()) {
+      appendEnclosed(suppressed, trace, "Suppressed: ", prefix + "\t", visited);
+    }
+    Throwable cause = throwable.getCause();
+    if(cause != null) {
+      appendEnclosed(cause, trace, "Caused by: ", prefix, visited);
+    }
+  }
+
+  /**
+   * Append first frames from stack trace, applying packages filter and depth limit.
+   *
+   * @param trace stack trace,
+   * @param count number of frames to consider, that is, frames not in common with enclosing trace,
+   * @param prefix lines prefix.
+   */
+  private void appendFrames(StackTraceElement[] trace, int count, String prefix)
+  {
+    int rendered = 0;
+    int filtered = 0;
+    for(int i = 0; i < count; ++i) {
+      if(isFiltered(trace[i])) {
+        ++filtered;
+        continue;
+      }
+      if(filtered > 0) {
+        builder.append(prefix).append("\t... ").append(filtered).append(" filtered").append(LINE_SEPARATOR);
+        filtered = 0;
+      }
+      if(depth > 0 && rendered == depth) {
+        builder.append(prefix).append("\t... ").append(count - i).append(" truncated").append(LINE_SEPARATOR);
+        return;
+      }
+      builder.append(prefix).append("\tat ").append(trace[i]).append(LINE_SEPARATOR);
+      ++rendered;
+    }
+    if(filtered > 0) {
+      builder.append(prefix).append("\t... ").append(filtered).append(" filtered").append(LINE_SEPARATOR);
+    }
+  }
+
+  private boolean isFiltered(StackTraceElement element)
+  {
+    for(String filteredPackage : filteredPackages) {
+      if(element.getClassName().startsWith(filteredPackage)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Test if stack fingerprint was rendered in full less than TTL ago; if not, record it as rendered now.
+   *
+   * @param fingerprint stack fingerprint.
+   * @return true if stack trace is repeated.
+   */
+  private boolean isRepeated(long fingerprint)
+  {
+    long now = System.nanoTime();
+    Long expiry = fingerprints.get(fingerprint);
+    if(expiry != null && expiry - now > 0) {
+      return true;
+    }
+
+    if(expiry == null && fingerprints.size() == MAX_FINGERPRINTS) {
+      Iterator<Long> expiries = fingerprints.values().iterator();
+      while(expiries.hasNext()) {
+        if(expiries.next() - now <= 0) {
+          expiries.remove();
+        }
+      }
+      if(fingerprints.size() == MAX_FINGERPRINTS) {
+        fingerprints.clear();
+      }
+    }
+    fingerprints.put(fingerprint, now + dedupTtl);
+    return false;
+  }
+
+  /**
+   * Compute FNV-1a 64 bits hash of exception classes and stack frames for the whole causes chain.
+   *
+   * @param throwable exception.
+   * @return stack fingerprint.
+   */
+  private static long fingerprint(Throwable throwable)
+  {
+    long hash = 0xcbf29ce484222325L;
+    Set<Throwable> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    while(throwable != null && visited.add(throwable)) {
+      hash = (hash ^ throwable.getClass().getName().hashCode()) * 0x100000001b3L;
+      for(StackTraceElement element : throwable.getStackTrace()) {
+        hash = (hash ^ element.hashCode()) * 0x100000001b3L;
+      }
+      throwable = throwable.getCause();
+    }
+    return hash;
+  }
+}
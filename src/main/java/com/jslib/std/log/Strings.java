@@ -1,8 +1,5 @@
 package com.jslib.std.log;
 
-import java.io.PrintWriter;
-import java.io.StringWriter;
-
 public class Strings
 {
   public static String throwable(Throwable throwable)
@@ -36,13 +33,4 @@ public class Strings
     }
     return sb.toString();
   }
-
-  public static String stackTrace(Throwable throwable)
-  {
-    StringWriter stackTrace = new StringWriter();
-    try (PrintWriter printer = new PrintWriter(stackTrace)) {
-      throwable.printStackTrace(printer);
-    }
-    return stackTrace.toString();
-  }
 }
@@ -0,0 +1,45 @@
+package com.jslib.std.log;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, concurrent cache for compiled log message templates, keyed by message string. Log messages are mostly string
+ * constants so cache hit ratio is high; still, messages built dynamically by application are possible and cache has a
+ * maximum size. When maximum size is reached new templates are compiled but not cached, so that cache content is not
+ * evicted by one time messages.
+ */
+class TemplateCache
+{
+  private final int maxSize;
+  private final Map<String, LogTemplate> templates;
+
+  public TemplateCache(int maxSize)
+  {
+    this.maxSize = maxSize;
+    this.templates = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * Get compiled template for log message, compiling and caching it if not already in cache.
+   *
+   * @param message log message.
+   * @return compiled template.
+   */
+  public LogTemplate get(String message)
+  {
+    LogTemplate template = templates.get(message);
+    if(template == null) {
+      template = LogTemplate.compile(message);
+      if(templates.size() < maxSize) {
+        templates.putIfAbsent(message, template);
+      }
+    }
+    return template;
+  }
+
+  public int size()
+  {
+    return templates.size();
+  }
+}
@@ -0,0 +1,116 @@
+package com.jslib.std.log;
+
+import java.util.Arrays;
+
+import com.jslib.api.log.Level;
+
+/**
+ * Log records buffered by a thread while a log transaction is active. Buffer is owned by its thread and is not thread
+ * safe; it is a plain array, grown on demand up to maximum records count and reused across transactions.
+ * <p>
+ * Buffer is bounded by records count and by estimated records size, see {@link GelfRecord#estimateSize()}. When a
+ * limit is reached configured {@link TransactionSpill} applies. On commit and rollback buffered records are published
+ * to sender queue with a single batch operation.
+ */
+class TransactionBuffer
+{
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final RecordQueue queue;
+  private final int maxRecords;
+  private final long maxBytes;
+  private final TransactionSpill spill;
+  private final PrinterStatistics statistics;
+
+  private GelfRecord[] records;
+  private int size;
+  private long bytes;
+  private boolean active;
+
+  /**
+   * Create empty transaction buffer.
+   *
+   * @param queue sender queue where records are published,
+   * @param maxRecords maximum number of buffered records,
+   * @param maxBytes maximum estimated size of buffered records,
+   * @param spill action taken when buffer is full,
+   * @param statistics printer statistics, for dropped records count.
+   */
+  public TransactionBuffer(RecordQueue queue, int maxRecords, long maxBytes, TransactionSpill spill, PrinterStatistics statistics)
+  {
+    this.queue = queue;
+    this.maxRecords = maxRecords;
+    this.maxBytes = maxBytes;
+    this.spill = spill;
+    this.statistics = statistics;
+    this.records = new GelfRecord[Math.min(INITIAL_CAPACITY, maxRecords)];
+  }
+
+  public void begin()
+  {
+    active = true;
+  }
+
+  public boolean isActive()
+  {
+    return active;
+  }
+
+  /**
+   * Buffer log record, applying spill action if buffer is full.
+   *
+   * @param record log record.
+   */
+  public void add(GelfRecord record)
+  {
+    int recordBytes = record.estimateSize();
+    if(size == maxRecords || (size > 0 && bytes + recordBytes > maxBytes)) {
+      if(spill == TransactionSpill.DROP) {
+        statistics.onDroppedTransactionRecord();
+        return;
+      }
+      publish();
+    }
+
+    if(size == records.length) {
+      records = Arrays.copyOf(records, Math.min(maxRecords, 2 * records.length));
+    }
+    records[size++] = record;
+    bytes += recordBytes;
+  }
+
+  /** Publish buffered records with level {@link Level#INFO} or more severe and end transaction. */
+  public void commit()
+  {
+    int count = 0;
+    for(int i = 0; i < size; ++i) {
+      if(records[i].getLogLevel().ordinal() <= Level.INFO.ordinal()) {
+        records[count++] = records[i];
+      }
+    }
+    Arrays.fill(records, count, size, null);
+    size = count;
+    publish();
+    active = false;
+  }
+
+  /** Publish all buffered records and end transaction. */
+  public void rollback()
+  {
+    publish();
+    active = false;
+  }
+
+  public int size()
+  {
+    return size;
+  }
+
+  private void publish()
+  {
+    queue.putAll(records, 0, size);
+    Arrays.fill(records, 0, size, null);
+    size = 0;
+    bytes = 0;
+  }
+}
@@ -0,0 +1,13 @@
+package com.jslib.std.log;
+
+/**
+ * Action taken by {@link TransactionBuffer} when a log record is written while transaction buffer is full, that is,
+ * maximum records count or maximum bytes is reached.
+ */
+enum TransactionSpill
+{
+  /** Publish buffered records to sender queue, all levels included, and continue buffering on an empty buffer. */
+  FLUSH,
+  /** Discard the record being written and keep buffered ones. */
+  DROP
+}
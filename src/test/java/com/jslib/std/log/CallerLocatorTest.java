@@ -0,0 +1,50 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import org.junit.Test;
+
+public class CallerLocatorTest
+{
+  @Test
+  public void GivenFullCapture_WhenLocate_ThenIncludeSourceLine()
+  {
+    // given
+    CallerLocator locator = CallerLocator.instance();
+
+    // when
+    StackTraceElement element = locator.locate(LocationCapture.FULL);
+
+    // then
+    assertThat(element, notNullValue());
+    assertThat(element.getClassName(), equalTo(CallerLocatorTest.class.getName()));
+    assertThat(element.getMethodName(), equalTo("GivenFullCapture_WhenLocate_ThenIncludeSourceLine"));
+    assertThat(element.getFileName(), equalTo("CallerLocatorTest.java"));
+    assertThat(element.getLineNumber() > 0, equalTo(true));
+  }
+
+  @Test
+  public void GivenMethodCapture_WhenLocate_ThenClassAndMethodOnly()
+  {
+    // given
+    CallerLocator locator = CallerLocator.instance();
+
+    // when
+    StackTraceElement element = locator.locate(LocationCapture.METHOD);
+
+    // then
+    assertThat(element, notNullValue());
+    assertThat(element.getClassName(), equalTo(CallerLocatorTest.class.getName()));
+    assertThat(element.getMethodName(), equalTo("GivenMethodCapture_WhenLocate_ThenClassAndMethodOnly"));
+  }
+
+  @Test
+  public void GivenLoggerImplementationClass_WhenIsLoggerFrame_ThenTrue()
+  {
+    assertThat(CallerLocator.isLoggerFrame(LogPrinter.class.getName()), equalTo(true));
+    assertThat(CallerLocator.isLoggerFrame(LogImpl.class.getName()), equalTo(true));
+    assertThat(CallerLocator.isLoggerFrame(CallerLocatorTest.class.getName()), equalTo(false));
+    assertThat(CallerLocator.isLoggerFrame("com.acme.LogImpl"), equalTo(false));
+  }
+}
@@ -0,0 +1,181 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jslib.api.log.Level;
+
+public class ConfigurationTest
+{
+  private Configuration configuration;
+  private AtomicInteger levelChanges;
+
+  @Before
+  public void beforeTest()
+  {
+    configuration = new Configuration();
+    levelChanges = new AtomicInteger();
+    configuration.setLevelListener(() -> levelChanges.incrementAndGet());
+  }
+
+  @Test
+  public void GivenLoggerLevel_WhenCommit_ThenLevelChangedAndListenerNotified()
+  {
+    // given
+    configuration.setLoggerLevel("com.acme", Level.ERROR);
+    assertThat(configuration.getLoggerLevel("com.acme.Service"), equalTo(Level.ALL));
+
+    // when
+    configuration.commit();
+
+    // then
+    assertThat(configuration.getLoggerLevel("com.acme.Service"), equalTo(Level.ERROR));
+    assertThat(configuration.getLoggerLevel("com.jslib.Service"), equalTo(Level.ALL));
+    assertThat(levelChanges.get(), equalTo(1));
+  }
+
+  @Test
+  public void GivenRootLevel_WhenCommit_ThenRootLevelChanged()
+  {
+    // given
+    configuration.setRootLevel(Level.WARN);
+    assertThat(configuration.getRootLevel(), equalTo(Level.ALL));
+
+    // when
+    configuration.commit();
+
+    // then
+    assertThat(configuration.getRootLevel(), equalTo(Level.WARN));
+    assertThat(configuration.getLoggerLevel("com.acme.Service"), equalTo(Level.WARN));
+  }
+
+  @Test
+  public void GivenClearedLoggerLevel_WhenCommit_ThenInheritParentLevel()
+  {
+    // given
+    configuration.setLoggerLevel("com.acme", Level.ERROR);
+    configuration.setLoggerLevel("com.acme.db", Level.DEBUG);
+    configuration.commit();
+
+    // when
+    configuration.clearLoggerLevel("com.acme.db");
+    configuration.commit();
+
+    // then
+    assertThat(configuration.getLoggerLevel("com.acme.db.Pool"), equalTo(Level.ERROR));
+  }
+
+  @Test
+  public void GivenLiveLogger_WhenCommit_ThenLoggerLevelUpdated() throws IOException
+  {
+    LogProviderImpl provider = new LogProviderImpl();
+    try {
+      // given
+      LogImpl logger = (LogImpl)provider.getLogger("com.acme.Service");
+      assertThat(logger.getLevel(), equalTo(Level.ALL));
+
+      // when
+      provider.getLogConfig().setLoggerLevel("com.acme", Level.INFO);
+      provider.getLogConfig().commit();
+
+      // then
+      assertThat(logger.getLevel(), equalTo(Level.INFO));
+    }
+    finally {
+      provider.close();
+    }
+  }
+
+  @Test
+  public void GivenConcurrentCommits_WhenGetLogger_ThenLoggerHasCommittedLevel() throws Exception
+  {
+    LogProviderImpl provider = new LogProviderImpl();
+    try {
+      // given
+      AtomicBoolean creating = new AtomicBoolean(true);
+      Thread committer = new Thread(() -> {
+        for(int i = 0; creating.get(); ++i) {
+          provider.getLogConfig().setLoggerLevel("com.acme", i % 2 == 0 ? Level.INFO : Level.ERROR);
+          provider.getLogConfig().commit();
+        }
+      });
+      Thread[] creators = new Thread[4];
+      LogImpl[][] loggers = new LogImpl[creators.length][2000];
+      for(int i = 0; i < creators.length; ++i) {
+        LogImpl[] threadLoggers = loggers[i];
+        int index = i;
+        creators[i] = new Thread(() -> {
+          for(int j = 0; j < threadLoggers.length; ++j) {
+            threadLoggers[j] = (LogImpl)provider.getLogger("com.acme.Service" + index + "_" + j);
+          }
+        });
+      }
+
+      // when
+      committer.start();
+      for(Thread creator : creators) {
+        creator.start();
+      }
+      for(Thread creator : creators) {
+        creator.join();
+      }
+      creating.set(false);
+      committer.join();
+
+      // then
+      Level committedLevel = provider.getLogConfig().getLoggerLevel("com.acme.Service");
+      for(LogImpl[] threadLoggers : loggers) {
+        for(LogImpl logger : threadLoggers) {
+          assertThat(logger.getLevel(), equalTo(committedLevel));
+        }
+      }
+    }
+    finally {
+      provider.close();
+    }
+  }
+
+  @Test
+  public void GivenWatchedFile_WhenModify_ThenReloadLevels() throws Exception
+  {
+    // given
+    File file = File.createTempFile("std-log", ".properties");
+    file.deleteOnExit();
+    Files.write(file.toPath(), "config.watch=true\nlevel.root=INFO\n".getBytes(StandardCharsets.ISO_8859_1));
+
+    System.setProperty("STD_LOG", file.getAbsolutePath());
+    Configuration configuration;
+    try {
+      configuration = new Configuration();
+    }
+    finally {
+      System.clearProperty("STD_LOG");
+    }
+
+    try {
+      assertThat(configuration.getLoggerLevel("com.acme.Service"), equalTo(Level.INFO));
+
+      // when
+      Files.write(file.toPath(), "config.watch=true\nlevel.root=INFO\nlevel.com.acme=DEBUG\n".getBytes(StandardCharsets.ISO_8859_1));
+
+      // then
+      for(int i = 0; i < 100 && configuration.getLoggerLevel("com.acme.Service") != Level.DEBUG; ++i) {
+        Thread.sleep(100);
+      }
+      assertThat(configuration.getLoggerLevel("com.acme.Service"), equalTo(Level.DEBUG));
+    }
+    finally {
+      configuration.close();
+    }
+  }
+}
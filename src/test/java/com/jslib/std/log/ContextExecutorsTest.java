@@ -0,0 +1,63 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ContextExecutorsTest
+{
+  private ExecutorService pool;
+
+  @Before
+  public void beforeTest()
+  {
+    pool = Executors.newSingleThreadExecutor();
+    LogContextImpl.get().clear();
+  }
+
+  @After
+  public void afterTest()
+  {
+    pool.shutdownNow();
+    LogContextImpl.get().clear();
+  }
+
+  @Test
+  public void GivenContext_WhenSubmitToWrappedService_ThenTaskSeesContext() throws InterruptedException, ExecutionException
+  {
+    // given
+    ExecutorService executor = ContextExecutors.wrap(pool);
+    LogContextImpl.get().put("request_id", "42");
+
+    // when
+    String requestId = executor.submit(() -> LogContextImpl.get().get("request_id")).get();
+    String poolContext = pool.submit(() -> LogContextImpl.get().get("request_id")).get();
+
+    // then
+    assertThat(requestId, equalTo("42"));
+    assertThat(poolContext, nullValue());
+  }
+
+  @Test
+  public void GivenPoolThreadContext_WhenSupplyAsync_ThenInstallCapturedAndRestore() throws InterruptedException, ExecutionException
+  {
+    // given
+    LogContextImpl.get().put("request_id", "42");
+    pool.submit(() -> LogContextImpl.get().put("request_id", "pool")).get();
+
+    // when
+    String requestId = ContextExecutors.supplyAsync(() -> LogContextImpl.get().get("request_id"), pool).get();
+    String restored = pool.submit(() -> LogContextImpl.get().get("request_id")).get();
+
+    // then
+    assertThat(requestId, equalTo("42"));
+    assertThat(restored, equalTo("pool"));
+  }
+}
@@ -0,0 +1,182 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileSinkTest
+{
+  private File directory;
+
+  @Before
+  public void beforeTest() throws IOException
+  {
+    directory = Files.createTempDirectory("std-log").toFile();
+  }
+
+  @After
+  public void afterTest()
+  {
+    for(File file : directory.listFiles()) {
+      file.delete();
+    }
+    directory.delete();
+  }
+
+  @Test
+  public void GivenSmallSegmentSize_WhenWrite_ThenRolloverAndCompress() throws IOException
+  {
+    // given
+    FileSink sink = new FileSink(new File(directory, "app.log").getPath(), 4096, 0, true, 256);
+    sink.start();
+    EncodedBatch.Pool pool = new EncodedBatch.Pool(4);
+    StringBuilder expected = new StringBuilder();
+
+    // when
+    for(int i = 0; i < 200; ++i) {
+      // record line is 128 bytes so that a segment holds exactly 32 records
+      String record = String.format("{\"short_message\":\"record %03d%95s\"}", i, "");
+      expected.append(record).append('\n');
+      byte[] bytes = (record + '\n').getBytes(StandardCharsets.UTF_8);
+      sink.offer(pool.acquire(bytes, bytes.length, new int[] {
+          0
+      }, new int[] {
+          bytes.length - 1
+      }, 1, 1));
+    }
+    sink.close();
+
+    // then
+    File[] files = directory.listFiles();
+    Arrays.sort(files);
+    assertThat(files.length, equalTo(7));
+    assertThat(files[0].getName(), endsWith(".0001.gz"));
+    assertThat(files[5].getName(), endsWith(".0006.gz"));
+    assertThat(files[6].getName(), endsWith(".0007"));
+
+    StringBuilder content = new StringBuilder();
+    for(File file : files) {
+      content.append(read(file));
+    }
+    assertThat(content.toString(), equalTo(expected.toString()));
+    assertThat(sink.getWrittenRecords(), equalTo(200L));
+  }
+
+  @Test
+  public void GivenExistingSegment_WhenNewSinkOnSamePath_ThenSegmentNotOverwritten() throws Exception
+  {
+    // given
+    String path = new File(directory, "app.log").getPath();
+    FileSink sink = new FileSink(path, 4096, 0, false, 256);
+    sink.write(batch("{\"short_message\":\"first run\"}"));
+    sink.closeSink();
+
+    // when
+    // restart in the same second produces the same segment timestamp and sequence restarts
+    sink = new FileSink(path, 4096, 0, false, 256);
+    sink.write(batch("{\"short_message\":\"second run\"}"));
+    sink.closeSink();
+
+    // then
+    File[] files = directory.listFiles();
+    Arrays.sort(files);
+    assertThat(files.length, equalTo(2));
+    assertThat(read(files[0]), equalTo("{\"short_message\":\"first run\"}\n"));
+    assertThat(read(files[1]), equalTo("{\"short_message\":\"second run\"}\n"));
+  }
+
+  @Test
+  public void GivenNextSegmentOpenFailure_WhenWrite_ThenRecoverOnNextWrite() throws Exception
+  {
+    // given
+    FileSink sink = new FileSink(new File(directory, "app.log").getPath(), 256, 0, false, 256);
+    String record = String.format("{\"short_message\":\"%150s\"}", "");
+    sink.write(batch(record));
+    // remove log directory so that next segment cannot be created
+    for(File file : directory.listFiles()) {
+      file.delete();
+    }
+    directory.delete();
+
+    // when
+    IOException exception = null;
+    try {
+      sink.write(batch(record));
+    }
+    catch(IOException e) {
+      exception = e;
+    }
+    directory.mkdirs();
+    sink.write(batch(record));
+    sink.closeSink();
+
+    // then
+    assertThat(exception, notNullValue());
+    File[] files = directory.listFiles();
+    assertThat(files.length, equalTo(1));
+    assertThat(read(files[0]), equalTo(record + '\n'));
+  }
+
+  @Test
+  public void GivenRolloverPeriod_WhenIdle_ThenRolloverAndCompress() throws Exception
+  {
+    // given
+    FileSink sink = new FileSink(new File(directory, "app.log").getPath(), 4096, 1, true, 256);
+    sink.start();
+    sink.offer(batch("{\"short_message\":\"idle segment\"}"));
+
+    // when
+    // no more records are written; rollover is triggered by sink worker while idle
+    File[] files = new File[0];
+    for(int i = 0; i < 400; ++i) {
+      files = directory.listFiles((dir, name) -> name.endsWith(".gz"));
+      if(files.length > 0) {
+        break;
+      }
+      Thread.sleep(10);
+    }
+
+    // then
+    assertThat(files.length, equalTo(1));
+    assertThat(read(files[0]), equalTo("{\"short_message\":\"idle segment\"}\n"));
+    sink.close();
+    // empty segment opened by rollover is not rolled again
+    assertThat(directory.listFiles((dir, name) -> name.endsWith(".gz")).length, equalTo(1));
+  }
+
+  private static EncodedBatch batch(String record)
+  {
+    byte[] bytes = (record + '\n').getBytes(StandardCharsets.UTF_8);
+    return new EncodedBatch.Pool(1).acquire(bytes, bytes.length, new int[] {
+        0
+    }, new int[] {
+        bytes.length - 1
+    }, 1, 1);
+  }
+
+  private static String read(File file) throws IOException
+  {
+    try (InputStream input = file.getName().endsWith(".gz") ? new GZIPInputStream(new FileInputStream(file)) : new FileInputStream(file)) {
+      ByteArrayOutputStream output = new ByteArrayOutputStream();
+      byte[] buffer = new byte[4096];
+      int length;
+      while((length = input.read(buffer)) != -1) {
+        output.write(buffer, 0, length);
+      }
+      return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,50 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import org.junit.Test;
+
+import com.jslib.api.log.Level;
+
+public class FlightRecorderTest
+{
+  @Test
+  public void GivenFullRing_WhenAdd_ThenOverwriteOldest()
+  {
+    // given
+    FlightRecorder recorder = new FlightRecorder(3);
+    RecordQueue queue = new RecordQueue(16, OverflowPolicy.BLOCK, Level.WARN);
+
+    // when
+    for(int i = 0; i < 5; ++i) {
+      recorder.add(new GelfRecord("record " + i));
+    }
+    recorder.flush(queue);
+
+    // then
+    assertThat(recorder.size(), equalTo(0));
+    assertThat(queue.size(), equalTo(3));
+    assertThat(queue.poll().getMessage(), equalTo("record 2"));
+    assertThat(queue.poll().getMessage(), equalTo("record 3"));
+    assertThat(queue.poll().getMessage(), equalTo("record 4"));
+  }
+
+  @Test
+  public void GivenPartialRing_WhenFlush_ThenPublishInOrder()
+  {
+    // given
+    FlightRecorder recorder = new FlightRecorder(4);
+    RecordQueue queue = new RecordQueue(16, OverflowPolicy.BLOCK, Level.WARN);
+    recorder.add(new GelfRecord("first"));
+    recorder.add(new GelfRecord("second"));
+
+    // when
+    recorder.flush(queue);
+
+    // then
+    assertThat(queue.size(), equalTo(2));
+    assertThat(queue.poll().getMessage(), equalTo("first"));
+    assertThat(queue.poll().getMessage(), equalTo("second"));
+  }
+}
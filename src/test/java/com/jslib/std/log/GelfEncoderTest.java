@@ -0,0 +1,184 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jslib.api.log.Level;
+
+public class GelfEncoderTest
+{
+  private GelfEncoder encoder;
+
+  @Before
+  public void beforeTest()
+  {
+    encoder = new GelfEncoder();
+  }
+
+  @Test
+  public void GivenRecord_WhenEncode_ThenGelfJson()
+  {
+    // given
+    GelfRecord record = new GelfRecord(1600000000123000L, "message");
+    record.setShortMessage("short message");
+    record.setLevel(SyslogLevel.ERROR);
+    record.setLogId(42L);
+    record.setLogLevel(Level.ERROR);
+    record.setLoggerName("com.acme.Logger");
+    record.setSource("Source.java", 7);
+    record.setTraceOffset(1.5D);
+    record.setField("user", "John Doe");
+
+    // when
+    String json = encode(record);
+
+    // then
+    assertThat(json, equalTo("{\"version\":\"1.1\",\"short_message\":\"short message\",\"timestamp\":1600000000.123000,\"level\":3,\"_log_id\":42,\"_log_name\":\"com.acme.Logger\",\"_log_level\":\"ERROR\",\"_log_level_ordinal\":2,\"_log_file\":\"Source.java\",\"_log_line\":7,\"_user\":\"John Doe\",\"_trace_offset\":1.500000}"));
+  }
+
+  @Test
+  public void GivenSharedContext_WhenEncode_ThenReuseEncodedContext()
+  {
+    // given
+    LogContextSnapshot context = LogContextSnapshot.EMPTY.with("tenant", "acme").with("trace_timestamp", 42L);
+    GelfRecord first = new GelfRecord(0L, "first");
+    first.setContext(context);
+    first.setField("tenant", "ignored");
+    first.setField("user", "John Doe");
+    GelfRecord second = new GelfRecord(0L, "second");
+    second.setContext(context);
+
+    // when
+    String firstJson = encode(first);
+    byte[] encodedContext = context.getEncoded();
+    String secondJson = encode(second);
+
+    // then
+    assertThat(firstJson, containsString(",\"_tenant\":\"acme\",\"_trace_timestamp\":42,\"_user\":\"John Doe\"}"));
+    assertThat(secondJson, containsString(",\"_tenant\":\"acme\",\"_trace_timestamp\":42}"));
+    assertThat(context.getEncoded(), sameInstance(encodedContext));
+    assertThat(context.hasTraceTimestamp(), is(true));
+    assertThat(context.getTraceTimestamp(), equalTo(42L));
+  }
+
+  @Test
+  public void GivenStandardFieldNames_WhenEncode_ThenNoDuplicatedKeys()
+  {
+    // given
+    GelfRecord record = new GelfRecord(0L, "message");
+    record.setLoggerName("com.acme.Logger");
+    record.setThreadName("main");
+    record.setContext(LogContextSnapshot.EMPTY.with("log_thread", "context thread").with("tenant", "acme"));
+    record.setField("log_name", "user name");
+    record.setField("log_level", "user level");
+
+    // when
+    String json = encode(record);
+
+    // then
+    assertThat(record.hasField("log_name"), is(true));
+    assertThat(json, endsWith(",\"_log_name\":\"com.acme.Logger\",\"_log_thread\":\"main\",\"_tenant\":\"acme\"}"));
+  }
+
+  @Test
+  public void GivenSpecialCharacters_WhenEncode_ThenEscape()
+  {
+    // given
+    GelfRecord record = new GelfRecord(0L, "message");
+    record.setShortMessage("quote\" backslash\\ slash/ tab\t line\n control\u0001 unicodeé€😀");
+
+    // when
+    String json = encode(record);
+
+    // then
+    assertThat(json, containsString("\"short_message\":\"quote\\\" backslash\\\\ slash/ tab\\t line\\n control\\u0001 unicodeé€😀\""));
+  }
+
+  @Test
+  public void GivenNullField_WhenEncode_ThenSkipField()
+  {
+    // given
+    GelfRecord record = new GelfRecord(0L, "message");
+    record.setShortMessage("message");
+    record.setField("null_field", null);
+
+    // when
+    String json = encode(record);
+
+    // then
+    assertThat(json, not(containsString("null_field")));
+    assertThat(json, endsWith("\"level\":1}"));
+  }
+
+  @Test
+  public void GivenDoubleValues_WhenEncode_ThenSameAsStringFormat()
+  {
+    double[] values = new double[] {
+        0, -0.0, 1, -1, 0.5, 0.0000005, -0.0000001, 123.456789, 1792302660.844, 1792302660.844123, 999999.9999995, 1e13, Double.NaN
+    };
+    for(double value : values) {
+      GelfRecord record = new GelfRecord(0L, "message");
+      record.setField("value", value);
+      String json = encode(record);
+      assertThat(json, endsWith("\"_value\":" + String.format(Locale.ENGLISH, "%.6f", value) + "}"));
+    }
+  }
+
+  @Test
+  public void GivenLargeRecord_WhenEncode_ThenGrowBuffer()
+  {
+    // given
+    StringBuilder message = new StringBuilder();
+    for(int i = 0; i < 100000; ++i) {
+      message.append("€");
+    }
+    GelfRecord record = new GelfRecord(0L, "message");
+    record.setShortMessage(message.toString());
+
+    // when
+    String json = encode(record);
+
+    // then
+    assertThat(json, containsString(message.toString()));
+  }
+
+  @Test
+  public void GivenControlCharactersFollowedByMultibyte_WhenEncode_ThenGrowBuffer()
+  {
+    // given
+    // unicode escapes take 6 bytes per character, more than reserved for the whole string
+    StringBuilder message = new StringBuilder();
+    StringBuilder expected = new StringBuilder();
+    for(int i = 0; i < 20000; ++i) {
+      message.append('\u0001');
+      expected.append("\\u0001");
+    }
+    for(int i = 0; i < 20000; ++i) {
+      message.append("€");
+      expected.append("€");
+    }
+    GelfRecord record = new GelfRecord(0L, "message");
+    record.setShortMessage(message.toString());
+
+    // when
+    String json = encode(record);
+
+    // then
+    assertThat(json, containsString("\"short_message\":\"" + expected + "\""));
+  }
+
+  private String encode(GelfRecord record)
+  {
+    encoder.reset();
+    encoder.encode(record);
+    ByteBuffer buffer = encoder.buffer();
+    return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,196 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class GelfTcpSenderTest
+{
+  private ServerSocket server;
+  private GelfTcpSender sender;
+
+  @After
+  public void afterTest() throws IOException
+  {
+    if(sender != null) {
+      sender.close();
+    }
+    if(server != null) {
+      server.close();
+    }
+  }
+
+  @Test
+  public void GivenBatch_WhenSend_ThenNullTerminatedFrames() throws IOException
+  {
+    // given
+    server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    server.setSoTimeout(4000);
+    sender = new GelfTcpSender(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort()), 4096, 1000);
+    Batch batch = new Batch("{\"a\":1}", "{\"b\":2}", "{\"c\":3}");
+    PrinterStatistics statistics = new PrinterStatistics();
+
+    // when
+    sender.send(batch.bytes, batch.starts, batch.ends, batch.count, statistics);
+    sender.close();
+    sender = null;
+
+    // then
+    try (Socket socket = server.accept()) {
+      assertThat(read(socket.getInputStream()), equalTo("{\"a\":1}\0{\"b\":2}\0{\"c\":3}\0"));
+    }
+    assertThat(statistics.getSendFailures(), equalTo(0L));
+  }
+
+  @Test
+  public void GivenCollectorDown_WhenPendingBufferFull_ThenDropRecords() throws IOException
+  {
+    // given
+    int port = freePort();
+    sender = new GelfTcpSender(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024, 0);
+    String[] records = new String[100];
+    for(int i = 0; i < records.length; ++i) {
+      records[i] = String.format("{\"short_message\":\"record %070d\"}", i);
+    }
+    Batch batch = new Batch(records);
+    PrinterStatistics statistics = new PrinterStatistics();
+
+    // when
+    sender.send(batch.bytes, batch.starts, batch.ends, batch.count, statistics);
+
+    // then
+    // every record has 100 bytes plus null terminator, so pending buffer has room for 10 records
+    assertThat(statistics.getSendFailures(), equalTo(90L));
+  }
+
+  @Test
+  public void GivenCollectorNotReading_WhenSendBatches_ThenEveryBatchBoundedByWriteTimeout() throws IOException
+  {
+    // given
+    server = new ServerSocket();
+    server.setReceiveBufferSize(1024);
+    server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1);
+    int writeTimeout = 100;
+    sender = new GelfTcpSender(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort()), 1024, writeTimeout);
+    String[] records = new String[256];
+    for(int i = 0; i < records.length; ++i) {
+      records[i] = String.format("{\"short_message\":\"record %0990d\"}", i);
+    }
+    Batch batch = new Batch(records);
+    PrinterStatistics statistics = new PrinterStatistics();
+
+    // when
+    // collector connection is completed by server backlog but never read; keep sending till socket buffers are full
+    long maxSendMillis = 0;
+    for(int i = 0; i < 200 && statistics.getSendFailures() == 0; ++i) {
+      long start = System.nanoTime();
+      sender.send(batch.bytes, batch.starts, batch.ends, batch.count, statistics);
+      maxSendMillis = Math.max(maxSendMillis, (System.nanoTime() - start) / 1000000);
+    }
+    long start = System.nanoTime();
+    sender.send(batch.bytes, batch.starts, batch.ends, batch.count, statistics);
+    maxSendMillis = Math.max(maxSendMillis, (System.nanoTime() - start) / 1000000);
+
+    // then
+    // without a deadline per batch a stalled batch would wait write timeout for every record, that is, 25 seconds
+    assertThat(statistics.getSendFailures() > 0, is(true));
+    assertThat(maxSendMillis < 10 * writeTimeout, is(true));
+  }
+
+  @Test
+  public void GivenUnresolvedHost_WhenSend_ThenKeepRecordsPending() throws IOException
+  {
+    // given
+    sender = new GelfTcpSender(InetSocketAddress.createUnresolved("std-log-collector.invalid", 12201), 1024, 0);
+    Batch batch = new Batch("{\"a\":1}", "{\"b\":2}");
+    PrinterStatistics statistics = new PrinterStatistics();
+
+    // when
+    // name lookup failure is handled as connection failure, with backoff, and not thrown to sink worker
+    sender.send(batch.bytes, batch.starts, batch.ends, batch.count, statistics);
+    sender.send(batch.bytes, batch.starts, batch.ends, batch.count, statistics);
+
+    // then
+    assertThat(statistics.getSendFailures(), equalTo(0L));
+  }
+
+  @Test
+  public void GivenCollectorStartedLater_WhenSend_ThenDeliverPendingRecords() throws Exception
+  {
+    // given
+    int port = freePort();
+    sender = new GelfTcpSender(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 4096, 1000);
+    PrinterStatistics statistics = new PrinterStatistics();
+    Batch batch = new Batch("{\"a\":1}");
+    sender.send(batch.bytes, batch.starts, batch.ends, batch.count, statistics);
+
+    // when
+    server = new ServerSocket(port, 1, InetAddress.getLoopbackAddress());
+    server.setSoTimeout(4000);
+    // wait for reconnect backoff
+    Thread.sleep(300);
+    batch = new Batch("{\"b\":2}");
+    sender.send(batch.bytes, batch.starts, batch.ends, batch.count, statistics);
+    sender.close();
+    sender = null;
+
+    // then
+    try (Socket socket = server.accept()) {
+      assertThat(read(socket.getInputStream()), equalTo("{\"a\":1}\0{\"b\":2}\0"));
+    }
+  }
+
+  private static int freePort() throws IOException
+  {
+    try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private static String read(InputStream stream) throws IOException
+  {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int length;
+    while((length = stream.read(buffer)) != -1) {
+      bytes.write(buffer, 0, length);
+    }
+    return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private static class Batch
+  {
+    final byte[] bytes;
+    final int[] starts;
+    final int[] ends;
+    final int count;
+
+    Batch(String... records)
+    {
+      ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      starts = new int[records.length];
+      ends = new int[records.length];
+      for(int i = 0; i < records.length; ++i) {
+        byte[] record = records[i].getBytes(StandardCharsets.UTF_8);
+        starts[i] = stream.size();
+        stream.write(record, 0, record.length);
+        ends[i] = stream.size();
+        // line separator between records, as encoded by sender thread
+        stream.write('\n');
+      }
+      bytes = stream.toByteArray();
+      count = records.length;
+    }
+  }
+}
@@ -0,0 +1,239 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GelfUdpSenderTest
+{
+  private DatagramSocket receiver;
+  private GelfUdpSender sender;
+
+  @Before
+  public void beforeTest() throws IOException
+  {
+    receiver = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+    receiver.setSoTimeout(4000);
+  }
+
+  @After
+  public void afterTest()
+  {
+    if(sender != null) {
+      sender.close();
+    }
+    receiver.close();
+  }
+
+  @Test
+  public void GivenSmallPayload_WhenSend_ThenSingleUncompressedDatagram() throws IOException
+  {
+    // given
+    sender = sender(GelfCompression.GZIP, 1024, 1420);
+    byte[] payload = payload(100);
+
+    // when
+    int datagrams = sender.send(payload, 0, payload.length);
+
+    // then
+    assertThat(datagrams, equalTo(1));
+    assertThat(Arrays.equals(receive(), payload), is(true));
+  }
+
+  @Test
+  public void GivenLargePayload_WhenSend_ThenChunks() throws IOException
+  {
+    // given
+    sender = sender(GelfCompression.NONE, 0, 112);
+    byte[] payload = payload(1000);
+
+    // when
+    int datagrams = sender.send(payload, 0, payload.length);
+
+    // then
+    assertThat(datagrams, equalTo(10));
+    ByteArrayOutputStream message = new ByteArrayOutputStream();
+    byte[] messageId = null;
+    for(int i = 0; i < datagrams; ++i) {
+      byte[] chunk = receive();
+      assertThat(chunk[0], equalTo((byte)0x1e));
+      assertThat(chunk[1], equalTo((byte)0x0f));
+      if(messageId == null) {
+        messageId = Arrays.copyOfRange(chunk, 2, 10);
+      }
+      assertThat(Arrays.equals(Arrays.copyOfRange(chunk, 2, 10), messageId), is(true));
+      assertThat((int)chunk[10], equalTo(i));
+      assertThat((int)chunk[11], equalTo(10));
+      message.write(chunk, 12, chunk.length - 12);
+    }
+    assertThat(Arrays.equals(message.toByteArray(), payload), is(true));
+  }
+
+  @Test
+  public void GivenGzipCompression_WhenSend_ThenGzipPayload() throws IOException
+  {
+    // given
+    sender = sender(GelfCompression.GZIP, 100, 1420);
+    byte[] payload = payload(10000);
+
+    // when
+    int datagrams = sender.send(payload, 0, payload.length);
+
+    // then
+    assertThat(datagrams, equalTo(1));
+    assertThat(Arrays.equals(read(new GZIPInputStream(new ByteArrayInputStream(receive()))), payload), is(true));
+
+    // deflater is reused for next payload
+    sender.send(payload, 0, payload.length);
+    assertThat(Arrays.equals(read(new GZIPInputStream(new ByteArrayInputStream(receive()))), payload), is(true));
+  }
+
+  @Test
+  public void GivenZlibCompression_WhenSend_ThenZlibPayload() throws IOException
+  {
+    // given
+    sender = sender(GelfCompression.ZLIB, 100, 1420);
+    byte[] payload = payload(10000);
+
+    // when
+    sender.send(payload, 0, payload.length);
+
+    // then
+    assertThat(Arrays.equals(read(new InflaterInputStream(new ByteArrayInputStream(receive()))), payload), is(true));
+  }
+
+  @Test
+  public void GivenZeroChunkSize_WhenSendCompressed_ThenMinimalChunks() throws IOException
+  {
+    // given
+    sender = sender(GelfCompression.ZLIB, 0, 0);
+    byte[] payload = payload(200);
+
+    // when
+    int datagrams = sender.send(payload, 0, payload.length);
+
+    // then
+    assertThat(Arrays.equals(read(new InflaterInputStream(new ByteArrayInputStream(receiveChunks(datagrams)))), payload), is(true));
+  }
+
+  @Test
+  public void GivenTinyChunkSize_WhenSendCompressed_ThenChunks() throws IOException
+  {
+    // given
+    sender = sender(GelfCompression.GZIP, 0, 20);
+    byte[] payload = payload(400);
+
+    // when
+    int datagrams = sender.send(payload, 0, payload.length);
+
+    // then
+    assertThat(datagrams > 1, is(true));
+    assertThat(Arrays.equals(read(new GZIPInputStream(new ByteArrayInputStream(receiveChunks(datagrams)))), payload), is(true));
+  }
+
+  @Test
+  public void GivenCollectorDown_WhenSendBatches_ThenReportOnlyFirstFailure() throws Exception
+  {
+    // given
+    int port = receiver.getLocalPort();
+    receiver.close();
+    sender = new GelfUdpSender(InetAddress.getLoopbackAddress(), port, GelfCompression.NONE, 0, 1420);
+    int[] starts = new int[20];
+    int[] ends = new int[20];
+    byte[] bytes = payload(100 * starts.length);
+    for(int i = 0; i < starts.length; ++i) {
+      starts[i] = 100 * i;
+      ends[i] = 100 * (i + 1);
+    }
+    PrinterStatistics statistics = new PrinterStatistics();
+    ByteArrayOutputStream errors = new ByteArrayOutputStream();
+    PrintStream systemErr = System.err;
+
+    // when
+    System.setErr(new PrintStream(errors, true, "UTF-8"));
+    try {
+      for(int i = 0; i < 5; ++i) {
+        sender.send(bytes, starts, ends, starts.length, statistics);
+      }
+    }
+    finally {
+      System.setErr(systemErr);
+    }
+
+    // then
+    // connected channel reports port unreachable on sends following the rejected datagram
+    assertThat(statistics.getSendFailures() > 0, is(true));
+    String output = new String(errors.toByteArray(), StandardCharsets.UTF_8);
+    assertThat(output, startsWith("Fail to send GELF record."));
+    assertThat(output.indexOf("Fail to send GELF record."), equalTo(output.lastIndexOf("Fail to send GELF record.")));
+  }
+
+  @Test(expected = IOException.class)
+  public void GivenPayloadOverChunksLimit_WhenSend_ThenException() throws IOException
+  {
+    sender = sender(GelfCompression.NONE, 0, 112);
+    byte[] payload = payload(100 * 129);
+    sender.send(payload, 0, payload.length);
+  }
+
+  private GelfUdpSender sender(GelfCompression compression, int threshold, int datagramSize) throws IOException
+  {
+    return new GelfUdpSender(InetAddress.getLoopbackAddress(), receiver.getLocalPort(), compression, threshold, datagramSize);
+  }
+
+  private byte[] receive() throws IOException
+  {
+    DatagramPacket packet = new DatagramPacket(new byte[65536], 65536);
+    receiver.receive(packet);
+    return Arrays.copyOf(packet.getData(), packet.getLength());
+  }
+
+  /**
+   * Receive chunks and concatenate their fragments, chunk header removed.
+   */
+  private byte[] receiveChunks(int count) throws IOException
+  {
+    ByteArrayOutputStream message = new ByteArrayOutputStream();
+    for(int i = 0; i < count; ++i) {
+      byte[] chunk = receive();
+      message.write(chunk, 12, chunk.length - 12);
+    }
+    return message.toByteArray();
+  }
+
+  private static byte[] payload(int length)
+  {
+    StringBuilder builder = new StringBuilder();
+    for(int i = 0; builder.length() < length; ++i) {
+      builder.append("{\"short_message\":\"record ").append(i).append("\"}");
+    }
+    return builder.substring(0, length).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] read(InputStream stream) throws IOException
+  {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    int length;
+    while((length = stream.read(buffer)) != -1) {
+      bytes.write(buffer, 0, length);
+    }
+    return bytes.toByteArray();
+  }
+}
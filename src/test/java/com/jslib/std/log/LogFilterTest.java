@@ -0,0 +1,119 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.jslib.api.log.Level;
+
+public class LogFilterTest
+{
+  @After
+  public void afterTest()
+  {
+    LogContextImpl.get().clear();
+  }
+
+  @Test
+  public void GivenLoggerNamePrefix_WhenAccept_ThenMatchPrefix()
+  {
+    // given
+    LogFilter filter = LogFilter.compile("log_name ^= \"com.acme.db\"");
+
+    // when
+    boolean accepted = filter.accept("com.acme.db.Pool", Level.INFO);
+    boolean rejected = filter.accept("com.acme.web.Servlet", Level.INFO);
+
+    // then
+    assertThat(accepted, is(true));
+    assertThat(rejected, is(false));
+  }
+
+  @Test
+  public void GivenContextValue_WhenAccept_ThenCompareWithContext()
+  {
+    // given
+    LogFilter filter = LogFilter.compile("log_name ^= \"com.acme.db\" && ctx.tenant == \"42\"");
+
+    // when
+    boolean missingContext = filter.accept("com.acme.db.Pool", Level.INFO);
+    LogContextImpl.get().put("tenant", "42");
+    boolean matchingContext = filter.accept("com.acme.db.Pool", Level.INFO);
+
+    // then
+    assertThat(missingContext, is(false));
+    assertThat(matchingContext, is(true));
+  }
+
+  @Test
+  public void GivenLevelComparison_WhenAccept_ThenCompareSeverity()
+  {
+    // given
+    LogFilter filter = LogFilter.compile("log_level >= WARN");
+
+    // then
+    assertThat(filter.accept("com.acme.Service", Level.ERROR), is(true));
+    assertThat(filter.accept("com.acme.Service", Level.WARN), is(true));
+    assertThat(filter.accept("com.acme.Service", Level.INFO), is(false));
+    assertThat(LogFilter.compile("log_level < INFO").accept("com.acme.Service", Level.DEBUG), is(true));
+  }
+
+  @Test
+  public void GivenLogicalOperators_WhenAccept_ThenRespectPrecedence()
+  {
+    // given
+    LogFilter filter = LogFilter.compile("!(log_name $= \"Servlet\") && (log_level == DEBUG || log_thread *= \"main\")");
+
+    // then
+    assertThat(filter.accept("com.acme.Service", Level.DEBUG), is(true));
+    assertThat(filter.accept("com.acme.Servlet", Level.DEBUG), is(false));
+    assertThat(filter.accept("com.acme.Service", Level.INFO), is(Thread.currentThread().getName().contains("main")));
+  }
+
+  @Test
+  public void GivenInvalidExpression_WhenCompile_ThenException()
+  {
+    String[] expressions = new String[] {
+        "", "log_name", "log_name ==", "log_name == \"x", "unknown == x", "log_level ^= WARN", "log_level == NOPE", "(log_name == x", "log_name == x y", "log_name <= x"
+    };
+    for(String expression : expressions) {
+      IllegalArgumentException exception = null;
+      try {
+        LogFilter.compile(expression);
+      }
+      catch(IllegalArgumentException e) {
+        exception = e;
+      }
+      assertThat(expression, exception, notNullValue());
+    }
+  }
+
+  @Test
+  public void GivenCommittedFilter_WhenIsAccepted_ThenApplyFilter() throws Exception
+  {
+    Configuration configuration = new Configuration();
+    LogPrinter printer = new LogPrinter(configuration);
+    try {
+      // given
+      LogImpl logger = new LogImpl(printer, "com.acme.Service", Level.ALL, LocationCapture.OFF);
+      configuration.setFilter("log_name ^= \"com.acme.db\"");
+      assertThat(printer.isAccepted(logger, Level.INFO), is(true));
+
+      // when
+      configuration.commit();
+
+      // then
+      assertThat(configuration.getFilter(), equalTo("log_name ^= \"com.acme.db\""));
+      assertThat(printer.isAccepted(logger, Level.INFO), is(false));
+
+      configuration.clearFilter();
+      configuration.commit();
+      assertThat(printer.isAccepted(logger, Level.INFO), is(true));
+    }
+    finally {
+      printer.close();
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public class LogIdGeneratorTest
+{
+  private static final int THREADS_COUNT = 64;
+  private static final int IDS_PER_THREAD = 20000;
+
+  @Test
+  public void Given64Threads_WhenNextId_ThenNoCollisions() throws InterruptedException
+  {
+    // given
+    final LogIdGenerator generator = new LogIdGenerator();
+    final long[][] threadIds = new long[THREADS_COUNT][IDS_PER_THREAD];
+    final long[][] threadTimestamps = new long[THREADS_COUNT][IDS_PER_THREAD];
+    final CountDownLatch startSignal = new CountDownLatch(1);
+
+    Thread[] threads = new Thread[THREADS_COUNT];
+    for(int i = 0; i < THREADS_COUNT; ++i) {
+      final long[] ids = threadIds[i];
+      final long[] timestamps = threadTimestamps[i];
+      threads[i] = new Thread(() -> {
+        try {
+          startSignal.await();
+        }
+        catch(InterruptedException e) {
+          return;
+        }
+        for(int j = 0; j < IDS_PER_THREAD; ++j) {
+          timestamps[j] = System.currentTimeMillis();
+          ids[j] = generator.nextId(timestamps[j]);
+        }
+      });
+      threads[i].start();
+    }
+
+    // when
+    startSignal.countDown();
+    for(Thread thread : threads) {
+      thread.join();
+    }
+
+    // then
+    long[] allIds = new long[THREADS_COUNT * IDS_PER_THREAD];
+    for(int i = 0; i < THREADS_COUNT; ++i) {
+      for(int j = 1; j < IDS_PER_THREAD; ++j) {
+        assertThat("per thread monotonic", threadIds[i][j] > threadIds[i][j - 1], equalTo(true));
+      }
+      for(int j = 0; j < IDS_PER_THREAD; ++j) {
+        // requested rate is over second capacity so identifier second can lead but never lag record timestamp
+        assertThat("second not older", threadIds[i][j] >> 16 >= threadTimestamps[i][j] / 1000, equalTo(true));
+      }
+      System.arraycopy(threadIds[i], 0, allIds, i * IDS_PER_THREAD, IDS_PER_THREAD);
+    }
+
+    Arrays.sort(allIds);
+    for(int i = 1; i < allIds.length; ++i) {
+      assertThat("unique", allIds[i] != allIds[i - 1], equalTo(true));
+    }
+  }
+
+  @Test
+  public void GivenTimestamp_WhenNextId_ThenSecondsOnHighBits()
+  {
+    // given
+    LogIdGenerator generator = new LogIdGenerator();
+    long timestamp = System.currentTimeMillis();
+
+    // when
+    long id = generator.nextId(timestamp);
+
+    // then
+    assertThat(id >> 16, equalTo(timestamp / 1000));
+  }
+
+  @Test
+  public void GivenSecondCapacityRequests_WhenNextId_ThenAllInRecordSecond()
+  {
+    // given
+    LogIdGenerator generator = new LogIdGenerator();
+    long timestamp = System.currentTimeMillis();
+
+    // when
+    long first = generator.nextId(timestamp);
+    long last = first;
+    for(int i = 1; i < 65536; ++i) {
+      last = generator.nextId(timestamp);
+    }
+    long borrowed = generator.nextId(timestamp);
+
+    // then
+    // shrinking blocks use second room to the last identifier before borrowing from next second
+    assertThat(first, equalTo((timestamp / 1000) << 16));
+    assertThat(last >> 16, equalTo(timestamp / 1000));
+    assertThat(last & 0xFFFF, equalTo(0xFFFFL));
+    assertThat(borrowed >> 16, equalTo(timestamp / 1000 + 1));
+  }
+
+  @Test
+  public void GivenThreadsNearSecondCapacity_WhenClaimBlocks_ThenBoundWaste() throws InterruptedException
+  {
+    // given
+    final LogIdGenerator generator = new LogIdGenerator();
+    final long timestamp = System.currentTimeMillis();
+    // every thread takes a single identifier, abandoning the rest of its block
+    Thread[] threads = new Thread[THREADS_COUNT];
+    for(int i = 0; i < THREADS_COUNT; ++i) {
+      threads[i] = new Thread(() -> generator.nextId(timestamp));
+    }
+
+    // when
+    long last = 0;
+    for(int i = 0; i < 50000; ++i) {
+      last = generator.nextId(timestamp);
+    }
+    for(Thread thread : threads) {
+      thread.start();
+      thread.join();
+    }
+    long next = 0;
+    for(int i = 0; i < 1000; ++i) {
+      next = generator.nextId(timestamp);
+    }
+
+    // then
+    // with full blocks 64 abandoned blocks would waste 16384 identifiers and push next identifiers to next second
+    assertThat(last >> 16, equalTo(timestamp / 1000));
+    assertThat(next >> 16, equalTo(timestamp / 1000));
+  }
+
+  @Test
+  public void GivenMicrosPrecision_WhenCurrentTimeMicros_ThenMonotonicAndCloseToWallClock()
+  {
+    // given
+    LogClock clock = new LogClock(LogClock.Precision.MICROS);
+
+    // when
+    long first = clock.currentTimeMicros();
+    long second = clock.currentTimeMicros();
+
+    // then
+    assertThat(second >= first, equalTo(true));
+    assertThat(Math.abs(first / 1000 - System.currentTimeMillis()) < 1000, equalTo(true));
+  }
+}
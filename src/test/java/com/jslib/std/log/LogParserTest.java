@@ -3,6 +3,8 @@ package com.jslib.std.log;
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.MatcherAssert.*;
 
+import java.util.function.Supplier;
+
 import org.junit.Before;
 import org.junit.Test;
 
@@ -27,4 +29,111 @@ public class LogParserTest
     //then
     assertThat(message, equalTo(json));
   }
+
+  @Test
+  public void GivenNamedParameters_WhenParse_ThenResolveAndStoreParameters()
+  {
+    // given
+    String message = "hello {name} and {other}";
+
+    // when
+    String result = parser.parse(message, "John", "Tom", "extra");
+
+    // then
+    assertThat(result, equalTo("hello John and Tom"));
+    assertThat(parser.getParameter("name"), equalTo("John"));
+    assertThat(parser.getParameter("other"), equalTo("Tom"));
+  }
+
+  @Test
+  public void GivenMissingArguments_WhenParse_ThenKeepEmptyBraces()
+  {
+    assertThat(parser.parse("hello {name} and {}", "John"), equalTo("hello John and {}"));
+    assertThat(parser.parse("a {x} {y", 1), equalTo("a 1 {"));
+    assertThat(parser.parse("text {unterminated", 1), equalTo("text "));
+  }
+
+  @Test
+  public void GivenMessageExtra_WhenParse_ThenStopOnExtra()
+  {
+    // given
+    String message = "dump:{__message_extra__} tail";
+
+    // when
+    String result = parser.parse(message, "EXTRA", "more");
+
+    // then
+    assertThat(result, equalTo("dump:"));
+    assertThat(parser.getMessageExtra(), equalTo("EXTRA"));
+  }
+
+  @Test
+  public void GivenPrintfTail_WhenParse_ThenFormatWithAllArguments()
+  {
+    assertThat(parser.parse("percent %s and %d", "s", 5), equalTo("percent s and 5"));
+    assertThat(parser.parse("name {n} rate %d%%", "N", 7), equalTo("name N rate %d%%"));
+    assertThat(parser.parse("name {n%d} end", "N", 7), equalTo("name %d} end"));
+  }
+
+  @Test
+  public void GivenParserReused_WhenParse_ThenResetState()
+  {
+    // given
+    parser.parse("dump:{__message_extra__}", "EXTRA");
+
+    // when
+    String result = parser.parse("{a}{b}{c}", 1, null, 3);
+
+    // then
+    assertThat(result, equalTo("1null3"));
+    assertThat(parser.getMessageExtra(), nullValue());
+    assertThat(parser.getParameters().size(), equalTo(3));
+  }
+
+  @Test
+  public void GivenSameMessage_WhenParseTwice_ThenCompileOnce()
+  {
+    // given
+    TemplateCache cache = new TemplateCache(16);
+    LogParser parser = new LogParser(cache);
+
+    // when
+    parser.parse("hello {name}", "John");
+    parser.parse("hello {name}", "Tom");
+
+    // then
+    assertThat(cache.size(), equalTo(1));
+    assertThat(cache.get("hello {name}"), sameInstance(cache.get("hello {name}")));
+  }
+
+  @Test
+  public void GivenFullCache_WhenGet_ThenCompileWithoutCaching()
+  {
+    // given
+    TemplateCache cache = new TemplateCache(1);
+    cache.get("first {}");
+
+    // when
+    LogTemplate template = cache.get("second {}");
+
+    // then
+    assertThat(template.size(), equalTo(2));
+    assertThat(cache.size(), equalTo(1));
+  }
+
+  @Test
+  public void GivenSupplierArguments_WhenParse_ThenResolveSuppliedValues()
+  {
+    // given
+    Supplier<String> name = () -> "John";
+    Supplier<Integer> count = () -> 3;
+
+    // when
+    String message = parser.parse("hello {name}", name);
+    String printfMessage = parser.parse("you have %d messages", count);
+
+    // then
+    assertThat(message, equalTo("hello John"));
+    assertThat(printfMessage, equalTo("you have 3 messages"));
+  }
 }
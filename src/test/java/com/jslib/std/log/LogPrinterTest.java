@@ -0,0 +1,315 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jslib.api.log.Level;
+
+public class LogPrinterTest
+{
+  private File directory;
+  private LogPrinter printer;
+  private LogImpl logger;
+
+  @Before
+  public void beforeTest() throws IOException
+  {
+    directory = Files.createTempDirectory("std-log").toFile();
+  }
+
+  @After
+  public void afterTest()
+  {
+    if(printer != null) {
+      printer.close();
+    }
+    LogContextImpl.get().clear();
+    for(File file : directory.listFiles()) {
+      file.delete();
+    }
+    directory.delete();
+  }
+
+  @Test
+  public void GivenBatchLinger_WhenSingleRecord_ThenSendBatchAfterLingerTimeout() throws Exception
+  {
+    // given
+    printer("batch.size=100", "batch.linger=200000");
+    PrinterStatistics statistics = printer.getStatistics();
+
+    // when
+    long start = System.nanoTime();
+    printer.write(logger, Level.INFO, "lingering record");
+    while(statistics.getBatches() == 0 && System.nanoTime() - start < 4000000000L) {
+      Thread.sleep(10);
+    }
+    long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+    // then
+    // batch is not full but is sent on linger timeout, while printer is still running
+    assertThat(statistics.getBatches(), equalTo(1L));
+    assertThat(statistics.getProcessedRecords(), equalTo(1L));
+    assertThat(elapsedMillis >= 150, is(true));
+  }
+
+  @Test
+  public void GivenBatchLinger_WhenBatchFull_ThenSendWithoutLinger() throws Exception
+  {
+    // given
+    printer("batch.size=4", "batch.linger=10000000");
+    PrinterStatistics statistics = printer.getStatistics();
+
+    // when
+    for(int i = 0; i < 10; ++i) {
+      printer.write(logger, Level.INFO, "record {index}", i);
+    }
+    for(int i = 0; i < 400 && statistics.getBatches() < 2; ++i) {
+      Thread.sleep(10);
+    }
+    // let sender thread start lingering on last, not full, batch
+    Thread.sleep(100);
+
+    // then
+    // full batches are sent as soon as filled; last batch lingers up to 10 seconds
+    assertThat(statistics.getBatches(), equalTo(2L));
+    assertThat(statistics.getProcessedRecords(), equalTo(8L));
+
+    // printer close interrupts linger and sends last batch
+    List<String> records = records();
+    assertThat(records.size(), equalTo(10));
+    assertThat(statistics.getBatches(), equalTo(3L));
+    assertThat(statistics.getProcessedRecords(), equalTo(10L));
+    assertThat(statistics.getAverageBatchSize(), equalTo(10 / 3.0D));
+    assertThat(statistics.getFailedRecords(), equalTo(0L));
+  }
+
+  @Test
+  public void GivenRecords_WhenClose_ThenStatisticsCountEncodedBytes() throws IOException
+  {
+    // given
+    printer();
+    PrinterStatistics statistics = printer.getStatistics();
+
+    // when
+    for(int i = 0; i < 5; ++i) {
+      printer.write(logger, Level.INFO, "record {index}", i);
+    }
+    List<String> records = records();
+
+    // then
+    // encoded bytes include line separators
+    long encodedBytes = 0;
+    for(String record : records) {
+      encodedBytes += record.getBytes(StandardCharsets.UTF_8).length + System.lineSeparator().length();
+    }
+    assertThat(statistics.getProcessedRecords(), equalTo(5L));
+    assertThat(statistics.getEncodedBytes(), equalTo(encodedBytes));
+    assertThat(statistics.getBatches() >= 1 && statistics.getBatches() <= 5, is(true));
+    assertThat(statistics.getSentDatagrams(), equalTo(0L));
+    assertThat(statistics.getSendFailures(), equalTo(0L));
+    assertThat(statistics.toString(0), startsWith("Processed 5 records in "));
+  }
+
+  @Test
+  public void GivenFlightRecorder_WhenWriteBelowThreshold_ThenHoldRecord() throws IOException
+  {
+    // given
+    printer("recorder.capacity=8", "recorder.threshold=INFO", "recorder.trigger=ERROR");
+
+    // when
+    printer.write(logger, Level.DEBUG, "held record");
+    printer.write(logger, Level.INFO, "sent record");
+
+    // then
+    List<String> records = records();
+    assertThat(records.size(), equalTo(1));
+    assertThat(records.get(0), containsString("\"short_message\":\"sent record\""));
+  }
+
+  @Test
+  public void GivenFlightRecorder_WhenWriteTrigger_ThenPublishRecordedBeforeTrigger() throws IOException
+  {
+    // given
+    printer("recorder.capacity=8", "recorder.threshold=INFO", "recorder.trigger=ERROR");
+    printer.write(logger, Level.DEBUG, "first debug");
+    printer.write(logger, Level.TRACE, "second trace");
+    printer.write(logger, Level.DEBUG, "third debug");
+
+    // when
+    printer.write(logger, Level.ERROR, "error");
+
+    // then
+    List<String> records = records();
+    assertThat(records.size(), equalTo(4));
+    assertThat(records.get(0), containsString("\"short_message\":\"first debug\""));
+    assertThat(records.get(1), containsString("\"short_message\":\"second trace\""));
+    assertThat(records.get(2), containsString("\"short_message\":\"third debug\""));
+    assertThat(records.get(3), containsString("\"short_message\":\"error\""));
+  }
+
+  @Test
+  public void GivenRecordsHeldByOtherThread_WhenFlushRecorders_ThenPublishRecords() throws Exception
+  {
+    // given
+    printer("recorder.capacity=8", "recorder.threshold=INFO", "recorder.trigger=ERROR");
+    Thread thread = new Thread(() -> printer.write(logger, Level.DEBUG, "other thread debug"), "recorded-thread");
+    thread.start();
+    thread.join();
+
+    // when
+    printer.flushRecorders();
+
+    // then
+    List<String> records = records();
+    assertThat(records.size(), equalTo(1));
+    assertThat(records.get(0), containsString("\"short_message\":\"other thread debug\""));
+    assertThat(records.get(0), containsString("\"_log_thread\":\"recorded-thread\""));
+  }
+
+  @Test
+  public void GivenEagerSuppliers_WhenWrite_ThenResolveOnWriterThread() throws IOException
+  {
+    // given
+    printer("supplier.eager=true");
+    String writerThread = Thread.currentThread().getName();
+    Supplier<String> thread = () -> Thread.currentThread().getName();
+
+    // when
+    printer.write(logger, Level.INFO, "written by {thread}", thread);
+
+    // then
+    List<String> records = records();
+    assertThat(records.size(), equalTo(1));
+    assertThat(records.get(0), containsString("\"short_message\":\"written by " + writerThread + "\""));
+  }
+
+  @Test
+  public void GivenEagerSuppliers_WhenSupplierThrows_ThenDropRecordWithoutException() throws IOException
+  {
+    // given
+    ByteArrayOutputStream console = new ByteArrayOutputStream();
+    PrintStream systemErr = System.err;
+    System.setErr(new PrintStream(console, true, "UTF-8"));
+    List<String> records;
+    PrinterStatistics statistics;
+    try {
+      // console printer is captured by log printer on creation
+      printer("supplier.eager=true", "console.printer=stderr");
+      statistics = printer.getStatistics();
+      Supplier<String> failing = () -> {
+        throw new IllegalStateException("supplier failure");
+      };
+
+      // when
+      printer.write(logger, Level.INFO, "failing {value}", failing);
+      printer.write(logger, Level.INFO, "next record");
+      records = records();
+    }
+    finally {
+      System.setErr(systemErr);
+    }
+
+    // then
+    assertThat(records.size(), equalTo(1));
+    assertThat(records.get(0), containsString("\"short_message\":\"next record\""));
+    assertThat(statistics.getFailedRecords(), equalTo(1L));
+    assertThat(new String(console.toByteArray(), StandardCharsets.UTF_8), containsString("Fail to resolve GELF record: failing {value}. Exception: java.lang.IllegalStateException: supplier failure"));
+  }
+
+  @Test
+  public void GivenStandardFieldParameter_WhenWrite_ThenStandardFieldNotDuplicated() throws IOException
+  {
+    // given
+    printer();
+
+    // when
+    printer.write(logger, Level.INFO, "logger {log_name}", "parameter value");
+
+    // then
+    List<String> records = records();
+    assertThat(records.size(), equalTo(1));
+    assertThat(records.get(0), containsString("\"short_message\":\"logger parameter value\""));
+    assertThat(records.get(0), containsString("\"_log_name\":\"com.acme.Service\""));
+    assertThat(records.get(0).indexOf("\"_log_name\""), equalTo(records.get(0).lastIndexOf("\"_log_name\"")));
+  }
+
+  @Test
+  public void GivenLongTraceTimestamp_WhenWrite_ThenNumericTimestampAndTraceOffset() throws IOException
+  {
+    // given
+    printer();
+    LogContexts.beginTrace();
+    LogContexts.put("request_size", 1024L);
+
+    // when
+    printer.write(logger, Level.INFO, "traced record");
+
+    // then
+    List<String> records = records();
+    assertThat(records.size(), equalTo(1));
+    assertThat(records.get(0), containsString("\"_trace_timestamp\":" + LogContextImpl.get().snapshot().getTraceTimestamp() + ","));
+    assertThat(records.get(0), containsString("\"_request_size\":1024"));
+    assertThat(records.get(0), containsString("\"_trace_offset\":"));
+  }
+
+  /**
+   * Create log printer writing records to a file sink in test directory, with given extra configuration properties.
+   */
+  private void printer(String... properties) throws IOException
+  {
+    StringBuilder builder = new StringBuilder();
+    builder.append("console.printer=none\n");
+    builder.append("file.path=").append(new File(directory, "app.log").getAbsolutePath().replace('\\', '/')).append('\n');
+    builder.append("file.compress=false\n");
+    for(String property : properties) {
+      builder.append(property).append('\n');
+    }
+    File file = new File(directory, "std-log.properties");
+    Files.write(file.toPath(), builder.toString().getBytes(StandardCharsets.ISO_8859_1));
+
+    System.setProperty("STD_LOG", file.getAbsolutePath());
+    try {
+      printer = new LogPrinter(new Configuration());
+    }
+    finally {
+      System.clearProperty("STD_LOG");
+    }
+    logger = new LogImpl(printer, "com.acme.Service", Level.ALL, LocationCapture.OFF);
+  }
+
+  /**
+   * Close log printer and return encoded records written to segment files, in writing order.
+   */
+  private List<String> records() throws IOException
+  {
+    printer.close();
+    printer = null;
+
+    File[] files = directory.listFiles((dir, name) -> name.startsWith("app.log."));
+    Arrays.sort(files);
+    List<String> records = new ArrayList<>();
+    for(File file : files) {
+      for(String line : new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8).split("\n")) {
+        if(!line.isEmpty()) {
+          records.add(line);
+        }
+      }
+    }
+    return records;
+  }
+}
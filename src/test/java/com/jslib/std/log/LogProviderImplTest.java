@@ -0,0 +1,80 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jslib.api.log.Log;
+
+public class LogProviderImplTest
+{
+  private LogProviderImpl provider;
+
+  @Before
+  public void beforeTest() throws IOException
+  {
+    provider = new LogProviderImpl();
+  }
+
+  @After
+  public void afterTest()
+  {
+    provider.close();
+  }
+
+  @Test
+  public void GivenSameLoggerName_WhenGetLogger_ThenSameInstance()
+  {
+    // given
+    Log logger = provider.getLogger("com.jslib.Test");
+
+    // when
+    Log cachedLogger = provider.getLogger("com.jslib.Test");
+
+    // then
+    assertThat(cachedLogger, sameInstance(logger));
+  }
+
+  @Test
+  public void GivenDifferentLoggerNames_WhenGetLogger_ThenDifferentInstances()
+  {
+    // given
+    Log logger = provider.getLogger("com.jslib.Test");
+
+    // when
+    Log otherLogger = provider.getLogger("com.jslib.OtherTest");
+
+    // then
+    assertThat(otherLogger, not(sameInstance(logger)));
+  }
+
+  @Test
+  public void GivenConcurrentThreads_WhenGetLogger_ThenSameInstance() throws InterruptedException
+  {
+    // given
+    Log[] loggers = new Log[16];
+    Thread[] threads = new Thread[loggers.length];
+    for(int i = 0; i < threads.length; ++i) {
+      final int index = i;
+      threads[i] = new Thread(() -> loggers[index] = provider.getLogger("com.jslib.ConcurrentTest"));
+    }
+
+    // when
+    for(Thread thread : threads) {
+      thread.start();
+    }
+    for(Thread thread : threads) {
+      thread.join();
+    }
+
+    // then
+    for(Log logger : loggers) {
+      assertThat(logger, sameInstance(loggers[0]));
+    }
+  }
+}
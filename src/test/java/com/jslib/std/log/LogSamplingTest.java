@@ -0,0 +1,45 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import org.junit.Test;
+
+import com.jslib.api.log.Level;
+
+public class LogSamplingTest
+{
+  @Test
+  public void GivenDebugSampling_WhenKeep_ThenSampleDebugAndTraceOnly()
+  {
+    // given
+    LogSampling sampling = LogSampling.parse("DEBUG:1/4");
+
+    // when
+    int kept = 0;
+    for(int i = 0; i < 40000; ++i) {
+      if(sampling.keep(Level.TRACE)) {
+        ++kept;
+      }
+    }
+
+    // then
+    assertThat(sampling.getRate(), equalTo(0.25));
+    assertThat(kept > 9000 && kept < 11000, is(true));
+    assertThat(sampling.isSampled(Level.DEBUG), is(true));
+    assertThat(sampling.isSampled(Level.INFO), is(false));
+    assertThat(sampling.keep(Level.INFO), is(true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void GivenMissingLevel_WhenParse_ThenException()
+  {
+    LogSampling.parse("1/100");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void GivenKeptGreaterThanTotal_WhenParse_ThenException()
+  {
+    LogSampling.parse("DEBUG:2/1");
+  }
+}
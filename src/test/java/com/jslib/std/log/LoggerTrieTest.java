@@ -0,0 +1,65 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.jslib.api.log.Level;
+
+public class LoggerTrieTest
+{
+  private LoggerTrie<Level> trie;
+
+  @Before
+  public void beforeTest()
+  {
+    Map<String, Level> patterns = new HashMap<>();
+    patterns.put("com.foo", Level.DEBUG);
+    patterns.put("com.foo.bar", Level.ERROR);
+    patterns.put("org", Level.WARN);
+    trie = new LoggerTrie<>(Level.INFO, patterns);
+  }
+
+  @Test
+  public void GivenExactPattern_WhenGet_ThenPatternValue()
+  {
+    assertThat(trie.get("com.foo"), equalTo(Level.DEBUG));
+    assertThat(trie.get("com.foo.bar"), equalTo(Level.ERROR));
+  }
+
+  @Test
+  public void GivenNestedLogger_WhenGet_ThenLongestPatternValue()
+  {
+    assertThat(trie.get("com.foo.Service"), equalTo(Level.DEBUG));
+    assertThat(trie.get("com.foo.bar.Service"), equalTo(Level.ERROR));
+    assertThat(trie.get("org.acme.Service"), equalTo(Level.WARN));
+  }
+
+  @Test
+  public void GivenPatternPrefixNotOnSegmentBoundary_WhenGet_ThenRootValue()
+  {
+    assertThat(trie.get("com.foobar"), equalTo(Level.INFO));
+    assertThat(trie.get("com.foo.barista"), equalTo(Level.DEBUG));
+    assertThat(trie.get("organization.Service"), equalTo(Level.INFO));
+  }
+
+  @Test
+  public void GivenNotMatchingLogger_WhenGet_ThenRootValue()
+  {
+    assertThat(trie.get("net.acme.Service"), equalTo(Level.INFO));
+    assertThat(trie.get("com"), equalTo(Level.INFO));
+    assertThat(trie.get(""), equalTo(Level.INFO));
+  }
+
+  @Test
+  public void GivenMemoizedLogger_WhenGetAgain_ThenSameValue()
+  {
+    assertThat(trie.get("com.foo.Service"), equalTo(Level.DEBUG));
+    assertThat(trie.get("com.foo.Service"), equalTo(Level.DEBUG));
+  }
+}
@@ -0,0 +1,138 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Formattable;
+import java.util.Formatter;
+import java.util.IllegalFormatException;
+import java.util.Locale;
+
+import org.junit.Test;
+
+public class PrintfFormatTest
+{
+  private static final String[] PATTERNS = new String[] {
+      "%s", "%d", "%x", "%f", "%.0f", "%.2f", "%.10f", "%%", "%n", "%s %s", "%d%%", "value: %s; hex: %x", "%s %d %f", //
+      "%5d", "%-5s", "%08.3f", "%S", "%X", "%e", "%b", "%c", "%1$s %1$s", "%.2s", "%.f", "%", "trailing %", "%q"
+  };
+
+  private static final Object[] VALUES = new Object[] {
+      null, "text", "", 0, 1, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, 42L, Long.MIN_VALUE, (short)-1, (byte)-1, //
+      new BigInteger("-123456789012345678901234567890"), 0.0, -0.0, 0.125, 1.0005, -0.0000001, 2.5, 123.456789, 1e20, 1e-20, //
+      0.05F, Float.MAX_VALUE, Double.MIN_VALUE, Double.NaN, Double.NEGATIVE_INFINITY, new BigDecimal("1.005"), 'c', true, new Object[0]
+  };
+
+  @Test
+  public void GivenPatternsAndSingleArgument_WhenFormat_ThenSameAsStringFormat()
+  {
+    for(String pattern : PATTERNS) {
+      PrintfFormat format = PrintfFormat.compile(pattern);
+      for(Object value : VALUES) {
+        assertFormat(format, value);
+      }
+    }
+  }
+
+  @Test
+  public void GivenPatternsAndArgumentsPairs_WhenFormat_ThenSameAsStringFormat()
+  {
+    for(String pattern : PATTERNS) {
+      PrintfFormat format = PrintfFormat.compile(pattern);
+      for(Object first : VALUES) {
+        for(Object second : VALUES) {
+          assertFormat(format, first, second);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void GivenMissingArgument_WhenFormat_ThenOriginalPattern()
+  {
+    assertThat(PrintfFormat.compile("%s %s").format("one"), equalTo("%s %s"));
+    assertThat(PrintfFormat.compile("%d").format(), equalTo("%d"));
+  }
+
+  @Test
+  public void GivenCommonSpecifiers_WhenCompile_ThenFastPath()
+  {
+    assertThat(PrintfFormat.compile("%s %d %x %f %.3f %% %n").isStandard(), is(false));
+    assertThat(PrintfFormat.compile("%5d").isStandard(), is(true));
+    assertThat(PrintfFormat.compile("%e").isStandard(), is(true));
+  }
+
+  @Test
+  public void GivenFormattable_WhenFormat_ThenStandardFormatter()
+  {
+    // given
+    Formattable formattable = new Formattable()
+    {
+      @Override
+      public void formatTo(Formatter formatter, int flags, int width, int precision)
+      {
+        formatter.format("formattable");
+      }
+    };
+
+    // when
+    String value = PrintfFormat.compile("value: %s").format(formattable);
+
+    // then
+    assertThat(value, equalTo("value: formattable"));
+  }
+
+  @Test
+  public void GivenLocaleWithCommaSeparator_WhenFormat_ThenSameAsStringFormat()
+  {
+    Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+    try {
+      Locale.setDefault(Locale.Category.FORMAT, Locale.GERMANY);
+      PrintfFormat format = PrintfFormat.compile("%d %.2f %s");
+      assertFormat(format, 1234567, 1234.567, 1.5);
+    }
+    finally {
+      Locale.setDefault(Locale.Category.FORMAT, locale);
+    }
+  }
+
+  @Test
+  public void GivenToStringException_WhenFormat_ThenPropagate()
+  {
+    // given
+    Object argument = new Object()
+    {
+      @Override
+      public String toString()
+      {
+        throw new IllegalStateException("toString");
+      }
+    };
+
+    // when
+    IllegalStateException exception = null;
+    try {
+      PrintfFormat.compile("%s").format(argument);
+    }
+    catch(IllegalStateException e) {
+      exception = e;
+    }
+
+    // then
+    assertThat(exception, notNullValue());
+  }
+
+  private static void assertFormat(PrintfFormat format, Object... args)
+  {
+    String expected;
+    try {
+      expected = String.format(format.pattern(), args);
+    }
+    catch(IllegalFormatException e) {
+      expected = format.pattern();
+    }
+    assertThat(format.pattern(), format.format(args), equalTo(expected));
+  }
+}
@@ -0,0 +1,78 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RateLimiterTest
+{
+  private List<String> summaries;
+  private RateLimiter limiter;
+
+  @Before
+  public void beforeTest()
+  {
+    summaries = new ArrayList<>();
+    LoggerTrie<RateLimiter.Rate> rates = new LoggerTrie<>(null, Collections.singletonMap("com.foo", RateLimiter.Rate.parse("3/60")));
+    limiter = new RateLimiter(rates, 3600, (loggerName, message, suppressedCount) -> {
+      summaries.add(loggerName + ":" + message + ":" + suppressedCount);
+    });
+  }
+
+  @After
+  public void afterTest()
+  {
+    limiter.close();
+  }
+
+  @Test
+  public void GivenBurstOverPermits_WhenAcquire_ThenSuppressAndReportCount()
+  {
+    // given
+    int accepted = 0;
+
+    // when
+    for(int i = 0; i < 5; ++i) {
+      if(limiter.acquire("com.foo.Bar", "Fail to connect.")) {
+        ++accepted;
+      }
+    }
+    limiter.report();
+
+    // then
+    assertThat(accepted, equalTo(3));
+    assertThat(summaries, equalTo(Collections.singletonList("com.foo.Bar:Fail to connect.:2")));
+  }
+
+  @Test
+  public void GivenDistinctTemplates_WhenAcquire_ThenLimitEachTemplate()
+  {
+    // given
+    for(int i = 0; i < 3; ++i) {
+      limiter.acquire("com.foo.Bar", "first");
+    }
+
+    // when
+    boolean first = limiter.acquire("com.foo.Bar", "first");
+    boolean second = limiter.acquire("com.foo.Bar", "second");
+    boolean notLimited = limiter.acquire("com.bar.Foo", "first");
+
+    // then
+    assertThat(first, is(false));
+    assertThat(second, is(true));
+    assertThat(notLimited, is(true));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void GivenInvalidRate_WhenParse_ThenException()
+  {
+    RateLimiter.Rate.parse("100");
+  }
+}
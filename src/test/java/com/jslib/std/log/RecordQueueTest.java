@@ -0,0 +1,164 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.jslib.api.log.Level;
+
+public class RecordQueueTest
+{
+  @Test
+  public void GivenCapacity_WhenCreate_ThenRoundUpToPowerOfTwo()
+  {
+    // given
+    int capacity = 100;
+
+    // when
+    RecordQueue queue = new RecordQueue(capacity, OverflowPolicy.BLOCK, Level.WARN);
+
+    // then
+    assertThat(queue.getCapacity(), equalTo(128));
+  }
+
+  @Test
+  public void GivenOffset_WhenDrainTo_ThenStoreRecordsFromOffset()
+  {
+    // given
+    RecordQueue queue = new RecordQueue(8, OverflowPolicy.BLOCK, Level.WARN);
+    GelfRecord first = new GelfRecord("first");
+    GelfRecord second = new GelfRecord("second");
+    GelfRecord third = new GelfRecord("third");
+    queue.put(first, Level.INFO);
+    queue.put(second, Level.INFO);
+    queue.put(third, Level.INFO);
+    GelfRecord[] records = new GelfRecord[4];
+
+    // when
+    int count = queue.drainTo(records, 1, 2);
+
+    // then
+    assertThat(count, equalTo(2));
+    assertThat(records[0], nullValue());
+    assertThat(records[1], sameInstance(first));
+    assertThat(records[2], sameInstance(second));
+    assertThat(records[3], nullValue());
+    assertThat(queue.drainTo(records, 3, 1), equalTo(1));
+    assertThat(records[3], sameInstance(third));
+    assertThat(queue.drainTo(records, 0, 4), equalTo(0));
+  }
+
+  @Test
+  public void GivenFullQueueAndDropNewest_WhenPut_ThenKeepEnqueuedRecords()
+  {
+    // given
+    RecordQueue queue = new RecordQueue(2, OverflowPolicy.DROP_NEWEST, Level.WARN);
+    GelfRecord first = new GelfRecord("first");
+    queue.put(first, Level.INFO);
+    queue.put(new GelfRecord("second"), Level.INFO);
+
+    // when
+    queue.put(new GelfRecord("third"), Level.INFO);
+
+    // then
+    assertThat(queue.getDroppedCount(), equalTo(1L));
+    assertThat(queue.poll(), sameInstance(first));
+  }
+
+  @Test
+  public void GivenFullQueueAndDropOldest_WhenPut_ThenDiscardHead()
+  {
+    // given
+    RecordQueue queue = new RecordQueue(2, OverflowPolicy.DROP_OLDEST, Level.WARN);
+    queue.put(new GelfRecord("first"), Level.INFO);
+    GelfRecord second = new GelfRecord("second");
+    queue.put(second, Level.INFO);
+
+    // when
+    queue.put(new GelfRecord("third"), Level.INFO);
+
+    // then
+    assertThat(queue.getDroppedCount(), equalTo(1L));
+    assertThat(queue.poll(), sameInstance(second));
+    assertThat(queue.poll().getMessage(), equalTo("third"));
+    assertThat(queue.poll(), nullValue());
+  }
+
+  @Test
+  public void GivenFullQueueAndDropBelowLevel_WhenPutDebug_ThenDrop()
+  {
+    // given
+    RecordQueue queue = new RecordQueue(2, OverflowPolicy.DROP_BELOW_LEVEL, Level.WARN);
+    queue.put(new GelfRecord("first"), Level.ERROR);
+    queue.put(new GelfRecord("second"), Level.ERROR);
+
+    // when
+    queue.put(new GelfRecord("third"), Level.DEBUG);
+
+    // then
+    assertThat(queue.getDroppedCount(), equalTo(1L));
+    assertThat(queue.size(), equalTo(2));
+  }
+
+  @Test
+  public void GivenRecordsOverCapacity_WhenPutAll_ThenApplyOverflowPolicy()
+  {
+    // given
+    RecordQueue queue = new RecordQueue(4, OverflowPolicy.DROP_NEWEST, Level.WARN);
+    queue.put(new GelfRecord("first"), Level.INFO);
+    GelfRecord[] records = new GelfRecord[5];
+    for(int i = 0; i < records.length; ++i) {
+      records[i] = new GelfRecord("batch " + i);
+      records[i].setLogLevel(Level.INFO);
+    }
+
+    // when
+    queue.putAll(records, 0, records.length);
+
+    // then
+    assertThat(queue.size(), equalTo(4));
+    assertThat(queue.getDroppedCount(), equalTo(2L));
+    assertThat(queue.poll().getMessage(), equalTo("first"));
+    assertThat(queue.poll(), sameInstance(records[0]));
+    assertThat(queue.poll(), sameInstance(records[1]));
+    assertThat(queue.poll(), sameInstance(records[2]));
+  }
+
+  @Test
+  public void GivenConcurrentProducers_WhenTake_ThenReceiveAllRecords() throws InterruptedException
+  {
+    // given
+    final int producersCount = 8;
+    final int recordsPerProducer = 10000;
+    final RecordQueue queue = new RecordQueue(64, OverflowPolicy.BLOCK, Level.WARN);
+
+    List<Thread> producers = new ArrayList<>();
+    for(int i = 0; i < producersCount; ++i) {
+      Thread producer = new Thread(() -> {
+        for(int j = 0; j < recordsPerProducer; ++j) {
+          queue.put(new GelfRecord("record"), Level.INFO);
+        }
+      });
+      producers.add(producer);
+      producer.start();
+    }
+
+    // when
+    int count = 0;
+    while(count < producersCount * recordsPerProducer) {
+      assertThat(queue.take(), notNullValue());
+      ++count;
+    }
+    for(Thread producer : producers) {
+      producer.join();
+    }
+
+    // then
+    assertThat(queue.isEmpty(), equalTo(true));
+    assertThat(queue.getDroppedCount(), equalTo(0L));
+  }
+}
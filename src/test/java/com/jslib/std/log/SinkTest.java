@@ -0,0 +1,102 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SinkTest
+{
+  @Test
+  public void GivenSlowSink_WhenOffer_ThenOtherSinkNotDelayed() throws InterruptedException
+  {
+    // given
+    CountDownLatch release = new CountDownLatch(1);
+    CountingSink slowSink = new CountingSink("slow", 1, release);
+    CountingSink fastSink = new CountingSink("fast", 16, null);
+    slowSink.start();
+    fastSink.start();
+    EncodedBatch.Pool pool = new EncodedBatch.Pool(4);
+
+    // when
+    for(int i = 0; i < 10; ++i) {
+      EncodedBatch batch = pool.acquire(new byte[] {
+          '{', '}', '\n'
+      }, 3, new int[] {
+          0
+      }, new int[] {
+          2
+      }, 1, 2);
+      slowSink.offer(batch);
+      fastSink.offer(batch);
+    }
+    fastSink.close();
+    release.countDown();
+    slowSink.close();
+
+    // then
+    assertThat(fastSink.written.get(), equalTo(10));
+    assertThat(fastSink.getDroppedRecords(), equalTo(0L));
+    assertThat(slowSink.getDroppedRecords() > 0, is(true));
+    assertThat(slowSink.getWrittenRecords() + slowSink.getDroppedRecords(), equalTo(10L));
+  }
+
+  @Test
+  public void GivenFailingSink_WhenWrite_ThenCountFailureAndNotHealthy()
+  {
+    // given
+    Sink sink = new Sink("failing", 4)
+    {
+      @Override
+      protected void write(EncodedBatch batch) throws Exception
+      {
+        throw new Exception("write failure");
+      }
+
+      @Override
+      protected void closeSink()
+      {
+      }
+    };
+    sink.start();
+    EncodedBatch.Pool pool = new EncodedBatch.Pool(4);
+
+    // when
+    sink.offer(pool.acquire(new byte[0], 0, new int[0], new int[0], 0, 1));
+    sink.close();
+
+    // then
+    assertThat(sink.getFailures(), equalTo(1L));
+    assertThat(sink.isHealthy(), is(false));
+  }
+
+  private static class CountingSink extends Sink
+  {
+    final AtomicInteger written = new AtomicInteger();
+    final CountDownLatch release;
+
+    CountingSink(String name, int queueCapacity, CountDownLatch release)
+    {
+      super(name, queueCapacity);
+      this.release = release;
+    }
+
+    @Override
+    protected void write(EncodedBatch batch) throws Exception
+    {
+      if(release != null) {
+        release.await(4, TimeUnit.SECONDS);
+      }
+      written.addAndGet(batch.count());
+    }
+
+    @Override
+    protected void closeSink()
+    {
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class StackTraceRendererTest
+{
+  @Test
+  public void GivenDefaultRenderer_WhenRender_ThenSameAsPrintStackTrace()
+  {
+    // given
+    StackTraceRenderer renderer = new StackTraceRenderer();
+    Exception exception = new IllegalStateException("outer", new RuntimeException("cause"));
+    exception.addSuppressed(new IllegalArgumentException("suppressed"));
+
+    // when
+    String stackTrace = renderer.render(exception);
+
+    // then
+    assertThat(stackTrace, equalTo(printStackTrace(exception)));
+  }
+
+  @Test
+  public void GivenDeduplication_WhenRenderSameStackTwice_ThenSecondIsReference()
+  {
+    // given
+    StackTraceRenderer renderer = new StackTraceRenderer(0, new String[0], 60);
+    Exception[] exceptions = new Exception[2];
+    for(int i = 0; i < exceptions.length; ++i) {
+      exceptions[i] = new IllegalStateException("failure " + i);
+    }
+
+    // when
+    String first = renderer.render(exceptions[0]);
+    String firstFingerprint = renderer.fingerprintHex();
+    String second = renderer.render(exceptions[1]);
+
+    // then
+    assertThat(first, equalTo(printStackTrace(exceptions[0])));
+    assertThat(renderer.fingerprintHex(), equalTo(firstFingerprint));
+    assertThat(second, startsWith("java.lang.IllegalStateException: failure 1"));
+    assertThat(second, containsString("\t... stack trace " + firstFingerprint + " already sent"));
+  }
+
+  @Test
+  public void GivenDepthAndFilter_WhenRender_ThenSkipFrames()
+  {
+    // given
+    StackTraceRenderer renderer = new StackTraceRenderer(1, new String[] {
+        "java.", "jdk.", "sun."
+    }, 0);
+    Exception exception = new IllegalStateException("failure");
+
+    // when
+    String stackTrace = renderer.render(exception);
+
+    // then
+    assertThat(stackTrace, containsString("\tat com.jslib.std.log.StackTraceRendererTest.GivenDepthAndFilter_WhenRender_ThenSkipFrames"));
+    assertThat(stackTrace, containsString(" truncated"));
+    assertThat(stackTrace, not(containsString("\tat java.")));
+  }
+
+  private static String printStackTrace(Throwable throwable)
+  {
+    StringWriter stackTrace = new StringWriter();
+    try (PrintWriter printer = new PrintWriter(stackTrace)) {
+      throwable.printStackTrace(printer);
+    }
+    return stackTrace.toString();
+  }
+}
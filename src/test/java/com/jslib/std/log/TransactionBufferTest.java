@@ -0,0 +1,79 @@
+package com.jslib.std.log;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.*;
+
+import org.junit.Test;
+
+import com.jslib.api.log.Level;
+
+public class TransactionBufferTest
+{
+  @Test
+  public void GivenBufferedRecords_WhenCommit_ThenPublishInfoAndMoreSevere()
+  {
+    // given
+    RecordQueue queue = new RecordQueue(16, OverflowPolicy.BLOCK, Level.WARN);
+    TransactionBuffer transaction = new TransactionBuffer(queue, 16, 1024 * 1024, TransactionSpill.FLUSH, new PrinterStatistics());
+    transaction.begin();
+    transaction.add(record("debug", Level.DEBUG));
+    transaction.add(record("info", Level.INFO));
+    transaction.add(record("error", Level.ERROR));
+
+    // when
+    transaction.commit();
+
+    // then
+    assertThat(transaction.isActive(), is(false));
+    assertThat(transaction.size(), equalTo(0));
+    assertThat(queue.size(), equalTo(2));
+    assertThat(queue.poll().getMessage(), equalTo("info"));
+    assertThat(queue.poll().getMessage(), equalTo("error"));
+  }
+
+  @Test
+  public void GivenFullBufferAndFlush_WhenAdd_ThenPublishBufferedRecords()
+  {
+    // given
+    RecordQueue queue = new RecordQueue(16, OverflowPolicy.BLOCK, Level.WARN);
+    TransactionBuffer transaction = new TransactionBuffer(queue, 2, 1024 * 1024, TransactionSpill.FLUSH, new PrinterStatistics());
+    transaction.begin();
+    transaction.add(record("first", Level.DEBUG));
+    transaction.add(record("second", Level.DEBUG));
+
+    // when
+    transaction.add(record("third", Level.DEBUG));
+    transaction.rollback();
+
+    // then
+    assertThat(queue.size(), equalTo(3));
+    assertThat(queue.poll().getMessage(), equalTo("first"));
+    assertThat(queue.poll().getMessage(), equalTo("second"));
+    assertThat(queue.poll().getMessage(), equalTo("third"));
+  }
+
+  @Test
+  public void GivenMaxBytesAndDrop_WhenAdd_ThenDropRecord()
+  {
+    // given
+    RecordQueue queue = new RecordQueue(16, OverflowPolicy.BLOCK, Level.WARN);
+    PrinterStatistics statistics = new PrinterStatistics();
+    TransactionBuffer transaction = new TransactionBuffer(queue, 16, 300, TransactionSpill.DROP, statistics);
+    transaction.begin();
+    transaction.add(record("first", Level.DEBUG));
+
+    // when
+    transaction.add(record("second", Level.DEBUG));
+
+    // then
+    assertThat(transaction.size(), equalTo(1));
+    assertThat(statistics.getDroppedTransactionRecords(), equalTo(1L));
+  }
+
+  private static GelfRecord record(String message, Level level)
+  {
+    GelfRecord record = new GelfRecord(message);
+    record.setLogLevel(level);
+    return record;
+  }
+}